@@ -35,7 +35,17 @@ public enum ProcessingStatus
   /**
    * The lot is done and the output will be returned to the user
    */
-  FINISHED (2);
+  FINISHED (2),
+
+  /**
+   * The lot failed in the Iris software and will not be retried, the certificates will be returned to the user as received
+   */
+  QUARANTINED (3),
+
+  /**
+   * The lot was cancelled by the user while running, its certificates are discarded once the run of the Iris software ends
+   */
+  CANCELLED (4);
 
   /**
    * Value of processing status
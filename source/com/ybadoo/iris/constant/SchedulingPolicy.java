@@ -0,0 +1,64 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.constant;
+
+/**
+ * Order in which the ready lots are claimed to be processed
+ */
+public enum SchedulingPolicy
+{
+  /**
+   * First in, first out: the oldest lot first
+   */
+  FIFO ("created"),
+
+  /**
+   * Shortest job first: the lot with fewer certificates first, the oldest between lots of the same size
+   */
+  SJF ("certificates, created"),
+
+  /**
+   * The lot with the highest priority first, the oldest between lots of the same priority
+   */
+  PRIORITY ("priority DESC, created");
+
+  /**
+   * SQL ordering of the ready lots in the manager table
+   */
+  private final String order;
+
+  /**
+   * Constructs a SchedulingPolicy with the specified ordering of the ready lots
+   *
+   * @param order the SQL ordering of the ready lots in the manager table
+   */
+  private SchedulingPolicy(final String order)
+  {
+    this.order = order;
+  }
+
+  /**
+   * Get the SQL ordering of the ready lots in the manager table
+   *
+   * @return the SQL ordering of the ready lots in the manager table
+   */
+  public String getOrder()
+  {
+    return order;
+  }
+}
@@ -60,6 +60,18 @@ public abstract class Database implements Serializable
    */
   protected String username;
 
+  /**
+   * Wait for a notification of new lots in the manager table, submitted by any host
+   *
+   * @param timeout the maximum time to wait, in seconds
+   * @return true if new lots were notified, false otherwise
+   * @throws BackendException if a database access error occurs
+   */
+  public boolean awaitLots(final int timeout) throws BackendException
+  {
+    return false;
+  }
+
   /**
    * Build the error message
    *
@@ -116,6 +128,13 @@ public abstract class Database implements Serializable
     }
   }
 
+  /**
+   * Get the SQL script to create the fault table, of the certificates isolated as the cause of a failure of the Iris (certificate database)
+   *
+   * @return the SQL script to create the fault table (certificate database)
+   */
+  public abstract String faultCreateScript();
+
   /**
    * Get the connection (session) with a specific database
    *
@@ -134,6 +153,33 @@ public abstract class Database implements Serializable
     return schema;
   }
 
+  /**
+   * Tests whether the database notifies the new lots in the manager table between the hosts
+   *
+   * @return true if the database notifies the new lots, false otherwise
+   */
+  public boolean isNotifiable()
+  {
+    return false;
+  }
+
+  /**
+   * Get the SQL script to lease a free pair of lot tables of the lease table (certificate database)
+   *
+   * The script leases at most one pair in a single statement, skipping the pairs locked by other holders, and takes as parameters
+   * the holder and the lease time
+   *
+   * @return the SQL script to lease a free pair of lot tables of the lease table (certificate database)
+   */
+  public abstract String leaseClaimScript();
+
+  /**
+   * Get the SQL script to create the lease table, of the pool of lot tables leased to the lots (certificate database)
+   *
+   * @return the SQL script to create the lease table (certificate database)
+   */
+  public abstract String leaseCreateScript();
+
   /**
    * Get the SQL script to create the logs ident table (cluster database)
    *
@@ -164,6 +210,18 @@ public abstract class Database implements Serializable
    */
   public abstract String lotMedCodCreateScript(final String lot);
 
+  /**
+   * Get the SQL script to claim the first ready lot of the manager table (certificate database)
+   *
+   * The script moves at most one lot from READY to RUNNING in a single statement, skipping the lots locked by other claimants,
+   * and takes as parameters the RUNNING status, the claimant, the access time and the READY status
+   *
+   * @param condition the additional condition the lot must satisfy, or null to claim any ready lot
+   * @param order the SQL ordering of the ready lots
+   * @return the SQL script to claim the first ready lot of the manager table (certificate database)
+   */
+  public abstract String managerClaimScript(final String condition, final String order);
+
   /**
    * Get the SQL script to create the manager table (certificate database)
    *
@@ -171,6 +229,23 @@ public abstract class Database implements Serializable
    */
   public abstract String managerCreateScript();
 
+  /**
+   * Get the SQL script to create the index of the ready lots, by status and creation, of the manager table (certificate database)
+   *
+   * @return the SQL script to create the index of the ready lots of the manager table (certificate database)
+   */
+  public abstract String managerIndexScript();
+
+  /**
+   * Notify the hosts that there are new lots in the manager table
+   *
+   * @throws BackendException if a database access error occurs
+   */
+  public void notifyLots() throws BackendException
+  {
+    // The database does not notify the new lots
+  }
+
   /**
    * Set the database address URL
    *
@@ -34,6 +34,24 @@ public class MySQLDatabase extends Database implements Serializable
    */
   private static final long serialVersionUID = 1L;
 
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#faultCreateScript()
+   */
+  @Override
+  public String faultCreateScript()
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("CREATE TABLE ").append(schema).append(".fault (")
+         .append("uid VARCHAR(30) NOT NULL,")
+         .append("certificateKey VARCHAR(30) NOT NULL,")
+         .append("message VARCHAR(255) NOT NULL,")
+         .append("PRIMARY KEY USING BTREE (uid, certificateKey)")
+       .append(") ENGINE=InnoDB CHARACTER SET 'utf8' COLLATE 'utf8_general_ci';");
+
+    return sql.toString();
+  }
+
   /* (non-Javadoc)
    * @see com.ybadoo.iris.database.Database#getConnection()
    */
@@ -57,6 +75,38 @@ public class MySQLDatabase extends Database implements Serializable
     return connection;
   }
 
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#leaseClaimScript()
+   */
+  @Override
+  public String leaseClaimScript()
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("UPDATE ").append(schema).append(".lease SET holder = ?, leased = ? ")
+       .append("WHERE holder IS NULL LIMIT 1;");
+
+    return sql.toString();
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#leaseCreateScript()
+   */
+  @Override
+  public String leaseCreateScript()
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("CREATE TABLE ").append(schema).append(".lease (")
+         .append("lot VARCHAR(30) NOT NULL,")
+         .append("holder VARCHAR(32),")
+         .append("leased DATETIME,")
+         .append("PRIMARY KEY USING BTREE (lot)")
+       .append(") ENGINE=InnoDB CHARACTER SET 'utf8' COLLATE 'utf8_general_ci';");
+
+    return sql.toString();
+  }
+
   /* (non-Javadoc)
    * @see com.ybadoo.iris.database.Database#logsIdentCreateScript()
    */
@@ -213,6 +263,27 @@ public class MySQLDatabase extends Database implements Serializable
     return sql.toString();
   }
 
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#managerClaimScript(java.lang.String, java.lang.String)
+   */
+  @Override
+  public String managerClaimScript(final String condition, final String order)
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("UPDATE ").append(schema).append(".manager SET status = ?, claimant = ?, accessed = ? ")
+       .append("WHERE status = ? ");
+
+    if (condition != null)
+    {
+      sql.append("AND ").append(condition).append(' ');
+    }
+
+    sql.append("ORDER BY ").append(order).append(" LIMIT 1;");
+
+    return sql.toString();
+  }
+
   /* (non-Javadoc)
    * @see com.ybadoo.iris.database.Database#managerCreateScript()
    */
@@ -228,9 +299,26 @@ public class MySQLDatabase extends Database implements Serializable
          .append("accessed DATETIME NOT NULL,")
          .append("lotType TINYINT(1) UNSIGNED NOT NULL,")
          .append("status TINYINT(1) UNSIGNED NOT NULL,")
+         .append("claimant VARCHAR(32),")
+         .append("priority TINYINT UNSIGNED NOT NULL DEFAULT 0,")
+         .append("certificates INT UNSIGNED NOT NULL,")
+         .append("keyLength TINYINT UNSIGNED NOT NULL,")
          .append("PRIMARY KEY USING BTREE (uid, owner)")
        .append(") ENGINE=InnoDB CHARACTER SET 'utf8' COLLATE 'utf8_general_ci';");
 
     return sql.toString();
   }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#managerIndexScript()
+   */
+  @Override
+  public String managerIndexScript()
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("CREATE INDEX manager_status_idx ON ").append(schema).append(".manager (status, created);");
+
+    return sql.toString();
+  }
 }
@@ -21,6 +21,9 @@ import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.postgresql.PGConnection;
 
 import com.ybadoo.iris.exception.BackendException;
 
@@ -34,6 +37,88 @@ public class PostgreSQLDatabase extends Database implements Serializable
    */
   private static final long serialVersionUID = 1L;
 
+  /**
+   * Dedicated connection listening the notifications of new lots
+   */
+  private transient Connection listener;
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#awaitLots(int)
+   */
+  @Override
+  public boolean awaitLots(final int timeout) throws BackendException
+  {
+    try
+    {
+      if (listener == null || listener.isClosed())
+      {
+        listener = DriverManager.getConnection("jdbc:postgresql://" + address, username, password);
+
+        try (final var statement = listener.createStatement())
+        {
+          statement.execute("LISTEN " + getChannel());
+        }
+      }
+
+      final var notifications = listener.unwrap(PGConnection.class).getNotifications((int) TimeUnit.SECONDS.toMillis(timeout));
+
+      return notifications != null && notifications.length > 0;
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#close()
+   */
+  @Override
+  public synchronized void close() throws BackendException
+  {
+    super.close();
+
+    try
+    {
+      if (listener != null && !listener.isClosed())
+      {
+        listener.close();
+      }
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#faultCreateScript()
+   */
+  @Override
+  public String faultCreateScript()
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("CREATE TABLE ").append(schema).append(".fault (")
+         .append("uid CHARACTER VARYING(30) NOT NULL,")
+         .append("certificateKey CHARACTER VARYING(30) NOT NULL,")
+         .append("message CHARACTER VARYING(255) NOT NULL,")
+         .append("CONSTRAINT fault_pkey PRIMARY KEY (uid, certificateKey)")
+       .append(");");
+
+    return sql.toString();
+  }
+
+  /**
+   * Get the name of the channel of the notifications of new lots
+   *
+   * @return the name of the channel of the notifications of new lots
+   */
+  private String getChannel()
+  {
+    return schema + "_manager";
+  }
+
   /* (non-Javadoc)
    * @see com.ybadoo.iris.database.Database#getConnection()
    */
@@ -55,6 +140,47 @@ public class PostgreSQLDatabase extends Database implements Serializable
     return connection;
   }
 
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#isNotifiable()
+   */
+  @Override
+  public boolean isNotifiable()
+  {
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#leaseClaimScript()
+   */
+  @Override
+  public String leaseClaimScript()
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("UPDATE ").append(schema).append(".lease SET holder = ?, leased = ? ")
+       .append("WHERE lot IN (SELECT lot FROM ").append(schema).append(".lease WHERE holder IS NULL LIMIT 1 FOR UPDATE SKIP LOCKED);");
+
+    return sql.toString();
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#leaseCreateScript()
+   */
+  @Override
+  public String leaseCreateScript()
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("CREATE TABLE ").append(schema).append(".lease (")
+         .append("lot CHARACTER VARYING(30) NOT NULL,")
+         .append("holder CHARACTER VARYING(32),")
+         .append("leased TIMESTAMP,")
+         .append("CONSTRAINT lease_pkey PRIMARY KEY (lot)")
+       .append(");");
+
+    return sql.toString();
+  }
+
   /* (non-Javadoc)
    * @see com.ybadoo.iris.database.Database#logsIdentCreateScript()
    */
@@ -211,6 +337,27 @@ public class PostgreSQLDatabase extends Database implements Serializable
     return sql.toString();
   }
 
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#managerClaimScript(java.lang.String, java.lang.String)
+   */
+  @Override
+  public String managerClaimScript(final String condition, final String order)
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("UPDATE ").append(schema).append(".manager SET status = ?, claimant = ?, accessed = ? ")
+       .append("WHERE (uid, owner) IN (SELECT uid, owner FROM ").append(schema).append(".manager WHERE status = ? ");
+
+    if (condition != null)
+    {
+      sql.append("AND ").append(condition).append(' ');
+    }
+
+    sql.append("ORDER BY ").append(order).append(" LIMIT 1 FOR UPDATE SKIP LOCKED);");
+
+    return sql.toString();
+  }
+
   /* (non-Javadoc)
    * @see com.ybadoo.iris.database.Database#managerCreateScript()
    */
@@ -226,9 +373,42 @@ public class PostgreSQLDatabase extends Database implements Serializable
          .append("accessed TIMESTAMP NOT NULL,")
          .append("lotType SMALLINT NOT NULL,")
          .append("status SMALLINT NOT NULL,")
+         .append("claimant CHARACTER VARYING(32),")
+         .append("priority SMALLINT NOT NULL DEFAULT 0,")
+         .append("certificates INTEGER NOT NULL,")
+         .append("keyLength SMALLINT NOT NULL,")
          .append("CONSTRAINT manager_pkey PRIMARY KEY (uid, owner)")
        .append(");");
 
     return sql.toString();
   }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#managerIndexScript()
+   */
+  @Override
+  public String managerIndexScript()
+  {
+    final var sql = new StringBuilder();
+
+    sql.append("CREATE INDEX manager_status_idx ON ").append(schema).append(".manager (status, created);");
+
+    return sql.toString();
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.database.Database#notifyLots()
+   */
+  @Override
+  public void notifyLots() throws BackendException
+  {
+    try (final var statement = getConnection().createStatement())
+    {
+      statement.execute("NOTIFY " + getChannel());
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
 }
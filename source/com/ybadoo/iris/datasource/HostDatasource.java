@@ -17,18 +17,27 @@
 
 package com.ybadoo.iris.datasource;
 
+import java.io.File;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
 
 import com.ybadoo.iris.constant.LotType;
 import com.ybadoo.iris.constant.ProcessingStatus;
+import com.ybadoo.iris.constant.SchedulingPolicy;
 import com.ybadoo.iris.database.Database;
+import com.ybadoo.iris.entity.Fault;
 import com.ybadoo.iris.entity.Ident;
 import com.ybadoo.iris.entity.Iris;
 import com.ybadoo.iris.entity.Manager;
@@ -37,17 +46,59 @@ import com.ybadoo.iris.entity.Recover;
 import com.ybadoo.iris.entity.UCCode;
 import com.ybadoo.iris.exception.BackendException;
 import com.ybadoo.iris.exception.FrontendException;
+import com.ybadoo.iris.exception.QuotaException;
 
 /**
  * Access to the host datasource, to handle:
  *
  * manager table
+ * lease table
  * unique tables (uniqueIdent and uniqueMedCod)
  * xxxIdent tables
  * xxxMedCod tables
  */
 public class HostDatasource extends Datasource
 {
+  /**
+   * Columns of the Ident tables, except the certificate key
+   */
+  private static final String IDENT_COLUMNS = "lastChange, dateBirth, dateDeath, age, sex, mannerOfDeath, ucCode, mainInjury, status, reject, coding, codingVersion, codingFlags, selectedCodes, substitutedCodes, ernCodes, acmeCodes, multipleCodes, comments, freeText, toDoList, coderReject, diagnosisModified, residence, name, address, autopsyRequested, autopsyUsed, recentSurgery, dateOfSurgery, reasonSurgery, dateOfInjury, placeOfOccurrence, activityCode, externalFreeText, pregnancy, pregnancyContributeDeath, stillbirth, multiplePregnancy, completedWeeks, birthWeight, ageOfMother, conditionsMother, certImage";
+
+  /**
+   * Maximum length of the certificate key
+   */
+  private static final int KEY_LENGTH = 30;
+
+  /**
+   * Columns of the MedCod tables, except the certificate key
+   */
+  private static final String MEDCOD_COLUMNS = "lineNb, textLine, codeLine, intervalLine, codeOnly, lineCoded";
+
+  /**
+   * Time to wait before retrying a submission refused by the quota, in seconds
+   */
+  private static final int QUOTA_RETRY_AFTER = 60;
+
+  /**
+   * Maximum priority of a lot
+   */
+  public static final int MAX_PRIORITY = 9;
+
+  /**
+   * Maximum number of lots packed in a single lot
+   */
+  public static final int PACK_CAPACITY = 100;
+
+  /**
+   * Format of the prefix of the certificate keys of a lot packed in a single lot, unique inside the pack
+   */
+  private static final String PACK_PREFIX = "%02d";
+
+  /**
+   * Length of the prefix of the certificate keys of a lot packed in a single lot
+   */
+  private static final int PACK_PREFIX_LENGTH = 2;
+
   /**
    * Version number of serializable class
    */
@@ -63,6 +114,41 @@ public class HostDatasource extends Datasource
    */
   private final transient DateTimeFormatter dateTimeFormatter;
 
+  /**
+   * The ready lots are shared fairly between the owners
+   */
+  private boolean fair;
+
+  /**
+   * Local store of the certificates of the lots of multiple certificates, or null to keep them in the host database
+   */
+  private Journal journal;
+
+  /**
+   * Number of pairs of lot tables created in advance and leased to the lots, or zero to create and drop the tables of each lot
+   */
+  private int poolSize;
+
+  /**
+   * Listener of the lots submitted to the manager table
+   */
+  private transient Consumer<Manager> listener;
+
+  /**
+   * Order in which the ready lots are claimed to be processed
+   */
+  private SchedulingPolicy policy = SchedulingPolicy.FIFO;
+
+  /**
+   * Maximum number of certificates queued or running per owner, or 0 for no limit
+   */
+  private int quotaCertificates;
+
+  /**
+   * Maximum number of lots running at the same time per owner, or 0 for no limit
+   */
+  private int quotaLots;
+
   /**
    * Constructor
    *
@@ -77,7 +163,8 @@ public class HostDatasource extends Datasource
   }
 
   /**
-   * Set the list of certificates processed by Access database
+   * Set a chunk of the list of certificates processed by Access database, finishing the unique certificates of the chunk; the lot of
+   * multiple certificates is finished by the caller, once all its chunks are set
    *
    * @param manager the lot's manager
    * @param certificates the list of certificates
@@ -85,11 +172,18 @@ public class HostDatasource extends Datasource
    */
   public void accessToCertificates(final Manager manager, final List<Ident> certificates) throws BackendException
   {
+    if (isJournaled(manager))
+    {
+      journal.append(manager.getUid(), Journal.RESULT, certificates);
+
+      return;
+    }
+
     var table = UNIQUE_TABLES;
 
     if (manager.getLotType() == LotType.MULTIPLE)
     {
-      table = manager.getUid();
+      table = manager.getTables();
     }
 
     try (final var preparedStatementIdent = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + "." + table + "Ident (certificateKey, lastChange, dateBirth, dateDeath, age, sex, mannerOfDeath, ucCode, mainInjury, status, reject, coding, codingVersion, codingFlags, selectedCodes, substitutedCodes, ernCodes, acmeCodes, multipleCodes, toDoList, autopsyRequested, autopsyUsed, recentSurgery, dateOfSurgery, dateOfInjury, placeOfOccurrence, activityCode, pregnancy, pregnancyContributeDeath, stillbirth, multiplePregnancy, completedWeeks, birthWeight, ageOfMother) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);");
@@ -200,18 +294,16 @@ public class HostDatasource extends Datasource
       throw new BackendException(exception);
     }
 
+    if (manager.getLotType() == LotType.MULTIPLE)
+    {
+      return;
+    }
+
     try (final var statement = database.getConnection().createStatement())
     {
-      if (manager.getLotType() == LotType.MULTIPLE)
-      {
-        statement.addBatch("UPDATE " + database.getSchema() + ".manager SET status = " + ProcessingStatus.FINISHED.getValue() + " WHERE uid = '" + manager.getUid() + "'");
-      }
-      else
+      for (Ident ident : certificates)
       {
-        for (Ident ident : certificates)
-        {
-          statement.addBatch("UPDATE " + database.getSchema() + ".manager SET status = " + ProcessingStatus.FINISHED.getValue() + " WHERE uid = '" + ident.getCertificateKey() + "'");
-        }
+        statement.addBatch("UPDATE " + database.getSchema() + ".manager SET status = " + ProcessingStatus.FINISHED.getValue() + " WHERE uid = '" + ident.getCertificateKey() + "' AND status <> " + ProcessingStatus.CANCELLED.getValue());
       }
 
       statement.executeBatch();
@@ -222,27 +314,75 @@ public class HostDatasource extends Datasource
     }
   }
 
+  /**
+   * Join two SQL conditions
+   *
+   * @param condition the first condition, or null if there is none
+   * @param other the second condition, or null if there is none
+   * @return the conjunction of the conditions, or null if there is none
+   */
+  private static String and(final String condition, final String other)
+  {
+    if (other == null)
+    {
+      return condition;
+    }
+
+    return condition == null ? other : condition + " AND " + other;
+  }
+
+  /**
+   * Wait for a notification of new lots in the manager table, submitted by any host
+   *
+   * @param timeout the maximum time to wait, in seconds
+   * @return true if new lots were notified, false otherwise
+   * @throws BackendException if a database access error occurs
+   */
+  public boolean awaitLots(final int timeout) throws BackendException
+  {
+    return database.awaitLots(timeout);
+  }
+
   /**
    * Facade to begin the process in the webservice
    *
    * @param owner the identifier of user's session
    * @param certificates the list of certificates
+   * @param priority the priority of the request, from 0 to MAX_PRIORITY
    * @return the user's request identifier
    * @throws BackendException if a database access error occurs
+   * @throws QuotaException if the owner exceeds its quota of queued certificates
    */
-  public String beginProcess(final String owner, final List<Ident> certificates) throws BackendException
+  public String beginProcess(final String owner, final List<Ident> certificates, final int priority) throws BackendException, QuotaException
   {
+    // The quota is checked before the certificates are stored, not in the insert of the lot, so the concurrent submissions of an
+    // owner may overrun it by the certificates of one submission each
+
+    if (quotaCertificates > 0 && countQueued(owner) + certificates.size() > quotaCertificates)
+    {
+      throw new QuotaException("Quota of " + quotaCertificates + " queued certificates exceeded, retry later", QUOTA_RETRY_AFTER);
+    }
+
     final var manager = new Manager();
 
     String uid = null;
 
     if (certificates.size() > 1)
     {
-      uid = RandomStringUtils.randomAlphabetic(30);
+      if (journal != null)
+      {
+        uid = RandomStringUtils.randomAlphabetic(30);
+
+        journal.append(uid, Journal.LOT, certificates);
+      }
+      else
+      {
+        uid = RandomStringUtils.randomAlphabetic(30);
 
-      createCertificatesTable(uid);
+        manager.setTables(leaseTables(uid));
 
-      insertCertificatesLot(uid, certificates);
+        insertCertificatesLot(manager.getTables(), certificates);
+      }
 
       manager.setLotType(LotType.MULTIPLE);
     }
@@ -259,193 +399,143 @@ public class HostDatasource extends Datasource
 
     manager.setOwner(owner);
 
+    manager.setCertificates(certificates.size());
+
+    manager.setKeyLength(certificates.stream().mapToInt(ident -> ident.getCertificateKey().length()).max().orElse(0));
+
     manager.setStatus(ProcessingStatus.READY);
 
+    manager.setPriority(priority);
+
     managerInsert(manager);
 
+    database.notifyLots();
+
+    if (listener != null)
+    {
+      listener.accept(manager);
+    }
+
     return uid;
   }
 
   /**
-   * Get the list of certificates to be process by Access database
+   * Cancel the lot of the owner: a ready lot is removed from the queue and discarded, a running lot is marked as cancelled, to be
+   * discarded once its run ends, and the output of a lot already processed is discarded
    *
-   * @param manager the lot's manager
-   * @return the list of certificates
-   * @throws BackendException if a database access error occurs
+   * @param owner the identifier of the owner
+   * @param uid the identifier of the lot
+   * @return the status of the lot when cancelled
+   * @throws BackendException problems in the back-end processing
+   * @throws FrontendException if the lot is not found
    */
-  public List<Ident> certificatesToAccess(final Manager manager) throws BackendException
+  public ProcessingStatus cancel(final String owner, final String uid) throws BackendException, FrontendException
   {
-    var sqlIdent = "SELECT a.* FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident a, " + database.getSchema() + ".manager b WHERE b.status = " + ProcessingStatus.READY.getValue() + " AND b.lotType = " + LotType.UNIQUE.getValue() + " AND b.uid = a.certificateKey";
-
-    var sqlMedCod = "SELECT * FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey = ?";
-
-    if (manager.getLotType() == LotType.MULTIPLE)
-    {
-      sqlIdent = "SELECT * FROM " + database.getSchema() + "." + manager.getUid() + "Ident";
-
-      sqlMedCod = "SELECT * FROM " + database.getSchema() + "." + manager.getUid() + "MedCod WHERE certificateKey = ?";
-    }
+    var manager = managerRecoverStatus(uid, owner);
 
-    final List<Ident> certificates = new LinkedList<>();
-
-    try (final var resultSet = database.getConnection().createStatement().executeQuery(sqlIdent);
-         final var preparedStatement = database.getConnection().prepareStatement(sqlMedCod))
+    if (manager.getStatus() == ProcessingStatus.READY)
     {
-      while (resultSet.next())
+      if (managerDeleteStatus(manager, ProcessingStatus.READY))
       {
-        final var ident = new Ident(dateTimeFormatter);
-
-        ident.setCertificateKey(resultSet.getString("certificateKey"));
-
-        ident.setDateBirth(resultSet.getTimestamp("dateBirth"));
-
-        ident.setDateDeath(resultSet.getTimestamp("dateDeath"));
-
-        ident.setAge(resultSet.getString("age"));
-
-        ident.setSex(resultSet.getString("sex"));
-
-        ident.setMannerOfDeath(resultSet.getString("mannerOfDeath"));
-
-        ident.setStatus(resultSet.getString("status"));
-
-        ident.setReject(resultSet.getString("reject"));
-
-        ident.setCoding(resultSet.getString("coding"));
-
-        ident.setCodingFlags(resultSet.getString("codingFlags"));
-
-        ident.setAutopsyRequested(resultSet.getString("autopsyRequested"));
-
-        ident.setAutopsyUsed(resultSet.getString("autopsyUsed"));
-
-        ident.setRecentSurgery(resultSet.getString("recentSurgery"));
-
-        ident.setDateOfSurgery(resultSet.getTimestamp("dateOfSurgery"));
-
-        ident.setDateOfInjury(resultSet.getTimestamp("dateOfInjury"));
-
-        ident.setPlaceOfOccurrence(resultSet.getString("placeOfOccurrence"));
-
-        ident.setActivityCode(resultSet.getString("activityCode"));
+        discardLot(manager);
 
-        ident.setPregnancy(resultSet.getString("pregnancy"));
-
-        ident.setPregnancyContributeDeath(resultSet.getString("pregnancyContributeDeath"));
-
-        ident.setStillbirth(resultSet.getString("stillbirth"));
-
-        ident.setMultiplePregnancy(resultSet.getString("multiplePregnancy"));
-
-        ident.setCompletedWeeks(resultSet.getString("completedWeeks"));
-
-        ident.setBirthWeight(resultSet.getString("birthWeight"));
-
-        ident.setAgeOfMother(resultSet.getString("ageOfMother"));
-
-        preparedStatement.clearParameters();
-
-        preparedStatement.setString(1, ident.getCertificateKey());
+        return ProcessingStatus.READY;
+      }
 
-        try (final var resultSetMedCod = preparedStatement.executeQuery())
-        {
-          final List<MedCod> medCods = new LinkedList<>();
+      // Claimed in the meantime
 
-          while (resultSetMedCod.next())
-          {
-            final var medCod = new MedCod();
+      manager = managerRecoverStatus(uid, owner);
+    }
 
-            medCod.setCertificateKey(resultSetMedCod.getString("certificateKey"));
+    if (manager.getStatus() == ProcessingStatus.RUNNING)
+    {
+      if (managerStatusCancel(manager))
+      {
+        return ProcessingStatus.RUNNING;
+      }
 
-            medCod.setLineNb(resultSetMedCod.getString("lineNb"));
+      // Processed in the meantime
 
-            medCod.setTextLine(resultSetMedCod.getString("textLine"));
+      manager = managerRecoverStatus(uid, owner);
+    }
 
-            medCod.setCodeLine(resultSetMedCod.getString("codeLine"));
+    if (manager.getStatus() != ProcessingStatus.CANCELLED)
+    {
+      discardLot(manager);
 
-            medCod.setIntervalLine(resultSetMedCod.getString("intervalLine"));
+      managerDelete(manager.getUid(), manager.getOwner());
+    }
 
-            medCod.setCodeOnly(resultSetMedCod.getString("codeOnly"));
+    return manager.getStatus();
+  }
 
-            medCod.setLineCoded(resultSetMedCod.getString("lineCoded"));
+  /**
+   * Count the certificates of the owner queued or running
+   *
+   * @param owner the identifier of the owner
+   * @return the number of certificates of the owner queued or running
+   * @throws BackendException if a database access error occurs
+   */
+  private int countQueued(final String owner) throws BackendException
+  {
+    try (final var preparedStatement = database.getConnection().prepareStatement("SELECT COALESCE(SUM(certificates), 0) FROM " + database.getSchema() + ".manager WHERE owner = ? AND status IN (?, ?)"))
+    {
+      preparedStatement.setString(1, owner);
 
-            medCods.add(medCod);
-          }
+      preparedStatement.setInt(2, ProcessingStatus.READY.getValue());
 
-          ident.setMedCods(medCods);
-        }
+      preparedStatement.setInt(3, ProcessingStatus.RUNNING.getValue());
 
-        certificates.add(ident);
+      try (final var resultSet = preparedStatement.executeQuery())
+      {
+        return resultSet.next() ? resultSet.getInt(1) : 0;
       }
     }
     catch (final SQLException exception)
     {
       throw new BackendException(exception);
     }
+  }
 
-    try (final var statement = database.getConnection().createStatement())
+  /**
+   * Get the certificate keys of the lot, in order
+   *
+   * @param manager the lot's manager
+   * @return the certificate keys of the lot
+   * @throws BackendException if a database access error occurs
+   */
+  public List<String> certificateKeys(final Manager manager) throws BackendException
+  {
+    try (final var resultSet = database.getConnection().createStatement().executeQuery("SELECT certificateKey FROM " + database.getSchema() + "." + manager.getTables() + "Ident ORDER BY certificateKey"))
     {
-      if (manager.getLotType() == LotType.MULTIPLE)
-      {
-        statement.addBatch("UPDATE " + database.getSchema() + ".manager SET status = " + ProcessingStatus.RUNNING.getValue() + " WHERE uid = '" + manager.getUid() + "'");
+      final List<String> keys = new LinkedList<>();
 
-        statement.addBatch("DELETE FROM " + database.getSchema() + "." + manager.getUid() + "Ident");
-
-        statement.addBatch("DELETE FROM " + database.getSchema() + "." + manager.getUid() + "MedCod");
-      }
-      else
+      while (resultSet.next())
       {
-        for (Ident ident : certificates)
-        {
-          statement.addBatch("UPDATE " + database.getSchema() + ".manager SET status = " + ProcessingStatus.RUNNING.getValue() + " WHERE uid = '" + ident.getCertificateKey() + "'");
-
-          statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey = '" + ident.getCertificateKey() + "'");
-
-          statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey = '" + ident.getCertificateKey() + "'");
-        }
+        keys.add(resultSet.getString("certificateKey"));
       }
 
-      statement.executeBatch();
+      return keys;
     }
     catch (final SQLException exception)
     {
       throw new BackendException(exception);
     }
-
-    return certificates;
   }
 
   /**
-   * Convert unique certificates from database to the Iris
+   * Drop the tables of a copy of the lot, made for a hedged run of the Iris that lost the race
    *
-   * @param manager the lot's manager
+   * @param copy the copy's manager
    * @throws BackendException if a database access error occurs
    */
-  public void convertDatabaseToIris(final Manager manager) throws BackendException
+  public void dropLot(final Manager copy) throws BackendException
   {
-    manager.setUid(RandomStringUtils.randomAlphabetic(30));
-
-    manager.setOwner(RandomStringUtils.randomAlphabetic(32));
-
-    manager.setLotType(LotType.UNIQUE);
-
-    manager.setStatus(ProcessingStatus.RUNNING);
-
     try (final var statement = database.getConnection().createStatement())
     {
-      statement.addBatch(database.lotIdentCreateScript(manager.getUid()));
-
-      statement.addBatch(database.lotMedCodCreateScript(manager.getUid()));
-
-      statement.addBatch("INSERT INTO " + database.getSchema() + "." + manager.getUid() + "Ident SELECT a.* FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident a, " + database.getSchema() + ".manager b WHERE b.status = " + ProcessingStatus.READY.getValue() + " AND b.lotType = " + LotType.UNIQUE.getValue() + " AND b.uid = a.certificateKey;");
-
-      statement.addBatch("INSERT INTO " + database.getSchema() + "." + manager.getUid() + "MedCod SELECT a.* FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod a, " + database.getSchema() + "." + manager.getUid() + "Ident b WHERE b.certificateKey = a.certificateKey;");
-
-      statement.addBatch("UPDATE " + database.getSchema() + ".manager SET status = " + ProcessingStatus.RUNNING.getValue() + " WHERE uid IN (SELECT certificateKey FROM " + database.getSchema() + "." + manager.getUid() + "Ident);");
-
-      statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey IN (SELECT certificateKey FROM " + database.getSchema() + "." + manager.getUid() + "Ident);");
+      statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + copy.getTables() + "Ident CASCADE;");
 
-      statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey IN (SELECT certificateKey FROM " + database.getSchema() + "." + manager.getUid() + "Ident);");
+      statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + copy.getTables() + "MedCod CASCADE;");
 
       statement.executeBatch();
     }
@@ -453,53 +543,79 @@ public class HostDatasource extends Datasource
     {
       throw new BackendException(exception);
     }
-
-    managerInsert(manager);
   }
 
   /**
-   * Convert unique certificates from Iris to the database
+   * Discard the lots cancelled while running, once their run ended: the lot, the lots packed in it or the unique certificates of its claim
    *
    * @param manager the lot's manager
    * @throws BackendException if a database access error occurs
    */
-  public void convertIrisToDatabase(final Manager manager) throws BackendException
+  public void dropCancelled(final Manager manager) throws BackendException
   {
-    try (final var statement = database.getConnection().createStatement())
+    if (manager.getLotType() == LotType.UNIQUE)
     {
-      statement.addBatch("INSERT INTO " + database.getSchema() + "." + UNIQUE_TABLES + "Ident SELECT * FROM " + database.getSchema() + "." + manager.getUid() + "Ident;");
+      final var cancelled = "SELECT uid FROM " + database.getSchema() + ".manager WHERE claimant = '" + manager.getClaimant() + "' AND lotType = " + LotType.UNIQUE.getValue() + " AND status = " + ProcessingStatus.CANCELLED.getValue();
 
-      statement.addBatch("INSERT INTO " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod SELECT * FROM " + database.getSchema() + "." + manager.getUid() + "MedCod;");
+      try (final var statement = database.getConnection().createStatement())
+      {
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey IN (" + cancelled + ");");
 
-      statement.addBatch("UPDATE " + database.getSchema() + ".manager SET status = " + ProcessingStatus.FINISHED.getValue() + " WHERE uid IN (SELECT certificateKey FROM " + database.getSchema() + "." + manager.getUid() + "Ident);");
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey IN (" + cancelled + ");");
 
-      statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + manager.getUid() + "Ident CASCADE;");
+        statement.addBatch("DELETE FROM " + database.getSchema() + ".manager WHERE claimant = '" + manager.getClaimant() + "' AND lotType = " + LotType.UNIQUE.getValue() + " AND status = " + ProcessingStatus.CANCELLED.getValue() + ";");
 
-      statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + manager.getUid() + "MedCod CASCADE;");
+        statement.executeBatch();
+      }
+      catch (final SQLException exception)
+      {
+        throw new BackendException(exception);
+      }
 
-      statement.executeBatch();
+      return;
     }
-    catch (final SQLException exception)
+
+    for (Manager lot : manager.getLots() != null ? manager.getLots() : List.of(manager))
     {
-      throw new BackendException(exception);
+      if (managerDeleteStatus(lot, ProcessingStatus.CANCELLED))
+      {
+        discardLot(lot);
+      }
     }
-
-    managerDelete(manager.getUid(), manager.getOwner());
   }
 
   /**
-   * Create the certificates tables (Ident and MedCod)
+   * Discard the certificates of the lot already set by the Access database, so the certificates of the lot can be set again from the
+   * start without duplicating them
    *
-   * @param lot the lot's name
+   * @param manager the lot's manager
    * @throws BackendException if a database access error occurs
    */
-  private void createCertificatesTable(final String lot) throws BackendException
+  public void discardAccess(final Manager manager) throws BackendException
   {
+    if (isJournaled(manager))
+    {
+      journal.reset(manager.getUid());
+
+      return;
+    }
+
     try (final var statement = database.getConnection().createStatement())
     {
-      statement.addBatch(database.lotIdentCreateScript(lot));
+      if (manager.getLotType() == LotType.MULTIPLE)
+      {
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + manager.getTables() + "MedCod;");
 
-      statement.addBatch(database.lotMedCodCreateScript(lot));
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + manager.getTables() + "Ident;");
+      }
+      else
+      {
+        final var claimed = "SELECT uid FROM " + database.getSchema() + ".manager WHERE claimant = '" + manager.getClaimant() + "' AND lotType = " + LotType.UNIQUE.getValue();
+
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey IN (" + claimed + ");");
+
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey IN (" + claimed + ");");
+      }
 
       statement.executeBatch();
     }
@@ -510,100 +626,670 @@ public class HostDatasource extends Datasource
   }
 
   /**
-   * Get the formatter for printing and parsing date-time objects
+   * Discard the certificates and faults of the lot, already removed or to be removed from the manager table
    *
-   * @return the formatter for printing and parsing date-time objects
+   * @param manager the lot's manager
+   * @throws BackendException if a database access error occurs
    */
-  public DateTimeFormatter getDateTimeFormatter()
+  private void discardLot(final Manager manager) throws BackendException
   {
-    return dateTimeFormatter;
-  }
+    if (isJournaled(manager))
+    {
+      journal.delete(manager.getUid());
 
-  /**
-   * Insert the certificates in the lot
-   *
-   * @param lot the lot's name
-   * @param certificates the list of certificates
-   * @throws BackendException if a database access error occurs
+      return;
+    }
+
+    try (final var statement = database.getConnection().createStatement())
+    {
+      if (manager.getLotType() == LotType.UNIQUE)
+      {
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey = '" + manager.getUid() + "';");
+
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey = '" + manager.getUid() + "';");
+      }
+      else
+      {
+        statement.addBatch("DELETE FROM " + database.getSchema() + ".fault WHERE uid = '" + manager.getUid() + "';");
+      }
+
+      statement.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+
+    if (manager.getLotType() == LotType.MULTIPLE)
+    {
+      releaseTables(manager);
+    }
+  }
+
+  /**
+   * Get the list of certificates to be process by Access database
+   *
+   * @param manager the lot's manager
+   * @return the list of certificates
+   * @throws BackendException if a database access error occurs
+   */
+  public List<Ident> certificatesToAccess(final Manager manager) throws BackendException
+  {
+    // The journal is kept until the lot is recovered, so the certificates are still there if the lot is claimed again, but not
+    // the results of a former run, which would be recovered twice with the results of this one
+
+    if (isJournaled(manager))
+    {
+      journal.reset(manager.getUid());
+
+      return journal.read(manager.getUid(), Journal.LOT, dateTimeFormatter);
+    }
+
+    var sqlIdent = "SELECT a.* FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident a, " + database.getSchema() + ".manager b WHERE b.claimant = '" + manager.getClaimant() + "' AND b.lotType = " + LotType.UNIQUE.getValue() + " AND b.uid = a.certificateKey ORDER BY a.certificateKey";
+
+    var sqlMedCod = "SELECT a.* FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod a, " + database.getSchema() + ".manager b WHERE b.claimant = '" + manager.getClaimant() + "' AND b.lotType = " + LotType.UNIQUE.getValue() + " AND b.uid = a.certificateKey ORDER BY a.certificateKey, a.lineNb";
+
+    if (manager.getLotType() == LotType.MULTIPLE)
+    {
+      sqlIdent = "SELECT * FROM " + database.getSchema() + "." + manager.getTables() + "Ident ORDER BY certificateKey";
+
+      sqlMedCod = "SELECT * FROM " + database.getSchema() + "." + manager.getTables() + "MedCod ORDER BY certificateKey, lineNb";
+    }
+
+    if (manager.getLotType() == LotType.UNIQUE)
+    {
+      claimUnique(manager.getClaimant());
+    }
+
+    final var certificates = readCertificates(sqlIdent, sqlMedCod, false);
+
+    try (final var statement = database.getConnection().createStatement())
+    {
+      if (manager.getLotType() == LotType.MULTIPLE)
+      {
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + manager.getTables() + "Ident");
+
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + manager.getTables() + "MedCod");
+      }
+      else
+      {
+        for (Ident ident : certificates)
+        {
+          statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey = '" + ident.getCertificateKey() + "'");
+
+          statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey = '" + ident.getCertificateKey() + "'");
+        }
+      }
+
+      statement.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+
+    return certificates;
+  }
+
+  /**
+   * Claim all the unique certificates ready to be processed, joining them to the claim of the lot, skipping the owners at their quota
+   * of running lots
+   *
+   * @param claimant the identifier of the claim of the lot
+   * @throws BackendException if a database access error occurs
+   */
+  private void claimUnique(final String claimant) throws BackendException
+  {
+    final var owners = managerBusyOwners();
+
+    final var condition = managerBusyCondition(owners);
+
+    try (final var preparedStatement = database.getConnection().prepareStatement("UPDATE " + database.getSchema() + ".manager SET status = ?, claimant = ?, accessed = ? WHERE status = ? AND lotType = ?" + (condition != null ? " AND " + condition : "")))
+    {
+      preparedStatement.setInt(1, ProcessingStatus.RUNNING.getValue());
+
+      preparedStatement.setString(2, claimant);
+
+      preparedStatement.setObject(3, LocalDateTime.now(), Types.TIMESTAMP);
+
+      preparedStatement.setInt(4, ProcessingStatus.READY.getValue());
+
+      preparedStatement.setInt(5, LotType.UNIQUE.getValue());
+
+      for (var index = 0; index < owners.size(); index++)
+      {
+        preparedStatement.setString(index + 6, owners.get(index));
+      }
+
+      preparedStatement.executeUpdate();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Convert unique certificates from database to the Iris
+   *
+   * @param manager the lot's manager
+   * @throws BackendException if a database access error occurs
+   */
+  public void convertDatabaseToIris(final Manager manager) throws BackendException
+  {
+    final var claimant = manager.getClaimant();
+
+    claimUnique(claimant);
+
+    manager.setUid(RandomStringUtils.randomAlphabetic(30));
+
+    manager.setTables(leaseTables(manager.getUid()));
+
+    manager.setOwner(RandomStringUtils.randomAlphabetic(32));
+
+    manager.setLotType(LotType.UNIQUE);
+
+    manager.setStatus(ProcessingStatus.RUNNING);
+
+    try (final var statement = database.getConnection().createStatement())
+    {
+      statement.addBatch("INSERT INTO " + database.getSchema() + "." + manager.getTables() + "Ident SELECT a.* FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident a, " + database.getSchema() + ".manager b WHERE b.claimant = '" + claimant + "' AND b.lotType = " + LotType.UNIQUE.getValue() + " AND b.uid = a.certificateKey;");
+
+      statement.addBatch("INSERT INTO " + database.getSchema() + "." + manager.getTables() + "MedCod SELECT a.* FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod a, " + database.getSchema() + "." + manager.getTables() + "Ident b WHERE b.certificateKey = a.certificateKey;");
+
+      statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey IN (SELECT certificateKey FROM " + database.getSchema() + "." + manager.getTables() + "Ident);");
+
+      statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey IN (SELECT certificateKey FROM " + database.getSchema() + "." + manager.getTables() + "Ident);");
+
+      final var counts = statement.executeBatch();
+
+      manager.setCertificates(Math.max(0, counts[0]));
+
+      manager.setStaged(true);
+    }
+    catch (final SQLException exception)
+    {
+      // The certificates are still in the unique tables, so the tables of the lot are released empty of their copies
+
+      releaseTables(manager);
+
+      throw new BackendException(exception);
+    }
+
+    managerInsert(manager);
+  }
+
+  /**
+   * Convert unique certificates from Iris to the database
+   *
+   * @param manager the lot's manager
+   * @param status the status of the certificates, FINISHED if coded or QUARANTINED if the lot failed
+   * @throws BackendException if a database access error occurs
+   */
+  public void convertIrisToDatabase(final Manager manager, final ProcessingStatus status) throws BackendException
+  {
+    try (final var statement = database.getConnection().createStatement())
+    {
+      statement.addBatch("INSERT INTO " + database.getSchema() + "." + UNIQUE_TABLES + "Ident SELECT * FROM " + database.getSchema() + "." + manager.getTables() + "Ident;");
+
+      statement.addBatch("INSERT INTO " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod SELECT * FROM " + database.getSchema() + "." + manager.getTables() + "MedCod;");
+
+      statement.addBatch("UPDATE " + database.getSchema() + ".manager SET status = " + status.getValue() + " WHERE uid IN (SELECT certificateKey FROM " + database.getSchema() + "." + manager.getTables() + "Ident) AND status <> " + ProcessingStatus.CANCELLED.getValue() + ";");
+
+      statement.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+
+    releaseTables(manager);
+
+    managerDelete(manager.getUid(), manager.getOwner());
+  }
+
+  /**
+   * Count the unique certificates ready to be processed or already joined to the claim of the lot
+   *
+   * @param claimant the identifier of the claim of the lot
+   * @return the number of unique certificates
+   * @throws BackendException if a database access error occurs
+   */
+  public int countUnique(final String claimant) throws BackendException
+  {
+    try (final var preparedStatement = database.getConnection().prepareStatement("SELECT count(*) FROM " + database.getSchema() + ".manager WHERE lotType = ? AND (status = ? OR claimant = ?)"))
+    {
+      preparedStatement.setInt(1, LotType.UNIQUE.getValue());
+
+      preparedStatement.setInt(2, ProcessingStatus.READY.getValue());
+
+      preparedStatement.setString(3, claimant);
+
+      try (final var resultSet = preparedStatement.executeQuery())
+      {
+        return resultSet.next() ? resultSet.getInt(1) : 0;
+      }
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Create the certificates tables (Ident and MedCod)
+   *
+   * @param lot the lot's name
+   * @throws BackendException if a database access error occurs
+   */
+  private void createCertificatesTable(final String lot) throws BackendException
+  {
+    try (final var statement = database.getConnection().createStatement())
+    {
+      statement.addBatch(database.lotIdentCreateScript(lot));
+
+      statement.addBatch(database.lotMedCodCreateScript(lot));
+
+      statement.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Register the certificates of the lot isolated as the cause of a failure of the Iris, returned to the user with a fault
+   *
+   * @param manager the lot's manager
+   * @param keys the keys of the certificates
+   * @param message the description of the failure
+   * @throws BackendException if a database access error occurs
+   */
+  public void faultCertificates(final Manager manager, final List<String> keys, final String message) throws BackendException
+  {
+    try (final var preparedStatement = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + ".fault (uid, certificateKey, message) VALUES (?, ?, ?);"))
+    {
+      for (String key : keys)
+      {
+        preparedStatement.clearParameters();
+
+        preparedStatement.setString(1, manager.getUid());
+
+        preparedStatement.setString(2, key);
+
+        preparedStatement.setString(3, message);
+
+        preparedStatement.addBatch();
+      }
+
+      preparedStatement.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Get the formatter for printing and parsing date-time objects
+   *
+   * @return the formatter for printing and parsing date-time objects
+   */
+  public DateTimeFormatter getDateTimeFormatter()
+  {
+    return dateTimeFormatter;
+  }
+
+  /**
+   * Tests whether the certificates of the lot are kept in the journal instead of the host database
+   *
+   * @param manager the lot's manager
+   * @return true if the certificates of the lot are kept in the journal, false otherwise
+   */
+  private boolean isJournaled(final Manager manager)
+  {
+    return journal != null && manager.getLotType() == LotType.MULTIPLE && journal.contains(manager.getUid());
+  }
+
+  /**
+   * Tests whether the host database notifies the new lots in the manager table between the hosts
+   *
+   * @return true if the host database notifies the new lots, false otherwise
+   */
+  public boolean isNotifiable()
+  {
+    return database.isNotifiable();
+  }
+
+  /**
+   * Tests whether the lot can be packed with other lots in a single lot
+   *
+   * @param manager the lot's manager
+   * @param certificates the maximum number of certificates of a lot to be packed
+   * @return true if the lot can be packed, false otherwise
+   */
+  public boolean isPackable(final Manager manager, final int certificates)
+  {
+    return manager.getLotType() == LotType.MULTIPLE && manager.getCertificates() <= certificates && manager.getKeyLength() <= KEY_LENGTH - PACK_PREFIX_LENGTH;
+  }
+
+  /**
+   * Insert the certificates in the lot
+   *
+   * @param lot the lot's name
+   * @param certificates the list of certificates
+   * @throws BackendException if a database access error occurs
+   */
+  private void insertCertificatesLot(final String lot, final List<Ident> certificates) throws BackendException
+  {
+    try (final var preparedStatementIdent = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + "." + lot + "Ident (certificateKey, dateBirth, dateDeath, age, sex, mannerOfDeath, codingFlags, autopsyRequested, autopsyUsed, recentSurgery, dateOfSurgery, dateOfInjury, placeOfOccurrence, activityCode, pregnancy, pregnancyContributeDeath, stillbirth, multiplePregnancy, completedWeeks, birthWeight, ageOfMother) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);");
+         final var preparedStatementMedCod = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + "." + lot + "MedCod (certificateKey, lineNb, textLine, codeLine, intervalLine, codeOnly, lineCoded) VALUES (?, ?, ?, ?, ?, ?, ?);"))
+    {
+      for (Ident ident : certificates)
+      {
+        preparedStatementIdent.clearParameters();
+
+        preparedStatementIdent.setString(1, ident.getCertificateKey());
+
+        preparedStatementIdent.setTimestamp(2, ident.getDateBirthAsTimestamp());
+
+        preparedStatementIdent.setTimestamp(3, ident.getDateDeathAsTimestamp());
+
+        preparedStatementIdent.setString(4, ident.getAge());
+
+        preparedStatementIdent.setString(5, ident.getSex());
+
+        preparedStatementIdent.setObject(6, ident.getMannerOfDeath(), Types.TINYINT);
+
+        preparedStatementIdent.setString(7, ident.getCodingFlags());
+
+        preparedStatementIdent.setString(8, ident.getAutopsyRequested());
+
+        preparedStatementIdent.setString(9, ident.getAutopsyUsed());
+
+        preparedStatementIdent.setString(10, ident.getRecentSurgery());
+
+        preparedStatementIdent.setTimestamp(11, ident.getDateOfSurgeryAsTimestamp());
+
+        preparedStatementIdent.setTimestamp(12, ident.getDateOfInjuryAsTimestamp());
+
+        preparedStatementIdent.setString(13, ident.getPlaceOfOccurrence());
+
+        preparedStatementIdent.setString(14, ident.getActivityCode());
+
+        preparedStatementIdent.setString(15, ident.getPregnancy());
+
+        preparedStatementIdent.setString(16, ident.getPregnancyContributeDeath());
+
+        preparedStatementIdent.setString(17, ident.getStillbirth());
+
+        preparedStatementIdent.setString(18, ident.getMultiplePregnancy());
+
+        preparedStatementIdent.setString(19, ident.getCompletedWeeks());
+
+        preparedStatementIdent.setString(20, ident.getBirthWeight());
+
+        preparedStatementIdent.setString(21, ident.getAgeOfMother());
+
+        preparedStatementIdent.addBatch();
+
+        for (MedCod medCod : ident.getMedCods())
+        {
+          preparedStatementMedCod.clearParameters();
+
+          preparedStatementMedCod.setString(1, medCod.getCertificateKey());
+
+          preparedStatementMedCod.setObject(2, medCod.getLineNb(), Types.TINYINT);
+
+          preparedStatementMedCod.setString(3, medCod.getTextLine());
+
+          preparedStatementMedCod.setString(4, medCod.getCodeLine());
+
+          preparedStatementMedCod.setString(5, medCod.getIntervalLine());
+
+          preparedStatementMedCod.setString(6, medCod.getCodeOnly());
+
+          preparedStatementMedCod.setString(7, medCod.getLineCoded());
+
+          preparedStatementMedCod.addBatch();
+        }
+      }
+
+      preparedStatementIdent.executeBatch();
+
+      preparedStatementMedCod.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Insert a pair of lot tables in the lease table
+   *
+   * @param lot the name of the pair of lot tables
+   * @param holder the holder of the lease, or null if the pair is free
+   * @throws BackendException if a database access error occurs
+   */
+  private void leaseInsert(final String lot, final String holder) throws BackendException
+  {
+    try (final var preparedStatement = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + ".lease (lot, holder, leased) VALUES (?, ?, ?);"))
+    {
+      preparedStatement.setString(1, lot);
+
+      preparedStatement.setString(2, holder);
+
+      preparedStatement.setObject(3, holder != null ? LocalDateTime.now() : null, Types.TIMESTAMP);
+
+      preparedStatement.execute();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Lease a free pair of lot tables from the pool to the lot, held by the identifier of the lot so the identifier is never reused
+   * with the pair; a new pair named by the identifier is created if the pool is exhausted, joining the pool once released, or if
+   * there is no pool
+   *
+   * @param uid the identifier of the lot
+   * @return the name of the pair of lot tables
+   * @throws BackendException if a database access error occurs
    */
-  private void insertCertificatesLot(final String lot, final List<Ident> certificates) throws BackendException
+  private String leaseTables(final String uid) throws BackendException
   {
-    try (final var preparedStatementIdent = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + "." + lot + "Ident (certificateKey, dateBirth, dateDeath, age, sex, mannerOfDeath, codingFlags, autopsyRequested, autopsyUsed, recentSurgery, dateOfSurgery, dateOfInjury, placeOfOccurrence, activityCode, pregnancy, pregnancyContributeDeath, stillbirth, multiplePregnancy, completedWeeks, birthWeight, ageOfMother) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);");
-         final var preparedStatementMedCod = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + "." + lot + "MedCod (certificateKey, lineNb, textLine, codeLine, intervalLine, codeOnly, lineCoded) VALUES (?, ?, ?, ?, ?, ?, ?);"))
+    if (poolSize > 0)
     {
-      for (Ident ident : certificates)
+      try (final var preparedStatement = database.getConnection().prepareStatement(database.leaseClaimScript()))
       {
-        preparedStatementIdent.clearParameters();
+        preparedStatement.setString(1, uid);
 
-        preparedStatementIdent.setString(1, ident.getCertificateKey());
+        preparedStatement.setObject(2, LocalDateTime.now(), Types.TIMESTAMP);
 
-        preparedStatementIdent.setTimestamp(2, ident.getDateBirthAsTimestamp());
+        if (preparedStatement.executeUpdate() > 0)
+        {
+          final var lot = leasedTables(uid);
 
-        preparedStatementIdent.setTimestamp(3, ident.getDateDeathAsTimestamp());
+          if (lot != null)
+          {
+            return lot;
+          }
+        }
+      }
+      catch (final SQLException exception)
+      {
+        throw new BackendException(exception);
+      }
+    }
 
-        preparedStatementIdent.setString(4, ident.getAge());
+    createCertificatesTable(uid);
 
-        preparedStatementIdent.setString(5, ident.getSex());
+    if (poolSize > 0)
+    {
+      leaseInsert(uid, uid);
+    }
 
-        preparedStatementIdent.setObject(6, ident.getMannerOfDeath(), Types.TINYINT);
+    return uid;
+  }
 
-        preparedStatementIdent.setString(7, ident.getCodingFlags());
+  /**
+   * Get the pair of lot tables leased to the lot
+   *
+   * @param uid the identifier of the lot
+   * @return the name of the pair of lot tables, or null if the lot holds no lease
+   * @throws BackendException if a database access error occurs
+   */
+  private String leasedTables(final String uid) throws BackendException
+  {
+    if (poolSize == 0)
+    {
+      return null;
+    }
 
-        preparedStatementIdent.setString(8, ident.getAutopsyRequested());
+    try (final var preparedStatement = database.getConnection().prepareStatement("SELECT lot FROM " + database.getSchema() + ".lease WHERE holder = ?"))
+    {
+      preparedStatement.setString(1, uid);
 
-        preparedStatementIdent.setString(9, ident.getAutopsyUsed());
+      try (final var resultSet = preparedStatement.executeQuery())
+      {
+        return resultSet.next() ? resultSet.getString("lot") : null;
+      }
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
 
-        preparedStatementIdent.setString(10, ident.getRecentSurgery());
+  /**
+   * Claim the next ready lot satisfying the condition, from the owner least served if the lots are shared fairly, skipping the owners
+   * at their quota of running lots, moving it atomically from READY to RUNNING
+   *
+   * @param condition the additional condition the lot must satisfy, or null to claim any ready lot
+   * @return the claimed lot, or null if there is no lot ready
+   */
+  private Manager managerClaim(final String condition) throws BackendException
+  {
+    if (fair)
+    {
+      for (String owner : managerFairOwners(condition))
+      {
+        final var manager = managerClaimFirst(and(condition, "owner = ?"), List.of(owner));
 
-        preparedStatementIdent.setTimestamp(11, ident.getDateOfSurgeryAsTimestamp());
+        if (manager != null)
+        {
+          return manager;
+        }
+      }
 
-        preparedStatementIdent.setTimestamp(12, ident.getDateOfInjuryAsTimestamp());
+      return null;
+    }
 
-        preparedStatementIdent.setString(13, ident.getPlaceOfOccurrence());
+    final var owners = managerBusyOwners();
 
-        preparedStatementIdent.setString(14, ident.getActivityCode());
+    return managerClaimFirst(and(condition, managerBusyCondition(owners)), owners);
+  }
 
-        preparedStatementIdent.setString(15, ident.getPregnancy());
+  /**
+   * Claim the first ready lot satisfying the condition, by the scheduling policy, moving it atomically from READY to RUNNING
+   *
+   * @param condition the additional condition the lot must satisfy, or null to claim any ready lot
+   * @param parameters the parameters of the condition
+   * @return the claimed lot, or null if there is no lot ready
+   */
+  private Manager managerClaimFirst(final String condition, final List<String> parameters) throws BackendException
+  {
+    final var claimant = RandomStringUtils.randomAlphanumeric(32);
 
-        preparedStatementIdent.setString(16, ident.getPregnancyContributeDeath());
+    try (final var preparedStatement = database.getConnection().prepareStatement(database.managerClaimScript(condition, policy.getOrder())))
+    {
+      preparedStatement.setInt(1, ProcessingStatus.RUNNING.getValue());
 
-        preparedStatementIdent.setString(17, ident.getStillbirth());
+      preparedStatement.setString(2, claimant);
 
-        preparedStatementIdent.setString(18, ident.getMultiplePregnancy());
+      preparedStatement.setObject(3, LocalDateTime.now(), Types.TIMESTAMP);
 
-        preparedStatementIdent.setString(19, ident.getCompletedWeeks());
+      preparedStatement.setInt(4, ProcessingStatus.READY.getValue());
 
-        preparedStatementIdent.setString(20, ident.getBirthWeight());
+      for (var index = 0; index < parameters.size(); index++)
+      {
+        preparedStatement.setString(index + 5, parameters.get(index));
+      }
 
-        preparedStatementIdent.setString(21, ident.getAgeOfMother());
+      if (preparedStatement.executeUpdate() == 0)
+      {
+        return null;
+      }
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
 
-        preparedStatementIdent.addBatch();
+    try (final var preparedStatement = database.getConnection().prepareStatement("SELECT uid, owner, lotType, certificates, keyLength FROM " + database.getSchema() + ".manager WHERE claimant = ?"))
+    {
+      preparedStatement.setString(1, claimant);
 
-        for (MedCod medCod : ident.getMedCods())
+      try (final var resultSet = preparedStatement.executeQuery())
+      {
+        if (resultSet.next())
         {
-          preparedStatementMedCod.clearParameters();
+          final var manager = new Manager();
 
-          preparedStatementMedCod.setString(1, medCod.getCertificateKey());
+          manager.setUid(resultSet.getString("uid"));
 
-          preparedStatementMedCod.setObject(2, medCod.getLineNb(), Types.TINYINT);
+          manager.setOwner(resultSet.getString("owner"));
 
-          preparedStatementMedCod.setString(3, medCod.getTextLine());
+          manager.setLotType(resultSet.getInt("lotType"));
 
-          preparedStatementMedCod.setString(4, medCod.getCodeLine());
+          manager.setCertificates(resultSet.getInt("certificates"));
 
-          preparedStatementMedCod.setString(5, medCod.getIntervalLine());
+          manager.setKeyLength(resultSet.getInt("keyLength"));
 
-          preparedStatementMedCod.setString(6, medCod.getCodeOnly());
+          manager.setStatus(ProcessingStatus.RUNNING);
 
-          preparedStatementMedCod.setString(7, medCod.getLineCoded());
+          manager.setClaimant(claimant);
 
-          preparedStatementMedCod.addBatch();
+          manager.setTables(leasedTables(manager.getUid()));
+
+          return manager;
         }
+
+        return null;
       }
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
 
-      preparedStatementIdent.executeBatch();
+  /**
+   * Update the status of the unique certificates of a claim in the manager table, but the cancelled ones
+   *
+   * @param claimant the identifier of the claim
+   * @param status the new status
+   * @throws BackendException if a database access error occurs
+   */
+  public void managerClaimStatusUpdate(final String claimant, final ProcessingStatus status) throws BackendException
+  {
+    try (final var preparedStatement = database.getConnection().prepareStatement("UPDATE " + database.getSchema() + ".manager SET accessed = ?, status = ? WHERE claimant = ? AND lotType = ? AND status <> ?"))
+    {
+      preparedStatement.setObject(1, LocalDateTime.now(), Types.TIMESTAMP);
 
-      preparedStatementMedCod.executeBatch();
+      preparedStatement.setInt(2, status.getValue());
+
+      preparedStatement.setString(3, claimant);
+
+      preparedStatement.setInt(4, LotType.UNIQUE.getValue());
+
+      preparedStatement.setInt(5, ProcessingStatus.CANCELLED.getValue());
+
+      preparedStatement.executeUpdate();
     }
     catch (final SQLException exception)
     {
@@ -633,6 +1319,32 @@ public class HostDatasource extends Datasource
     }
   }
 
+  /**
+   * Delete of lot in the manager table, if the lot is in the given status
+   *
+   * @param manager the lot's manager
+   * @param status the status of the lot
+   * @return true if the lot was deleted, false if the lot is not in the given status
+   * @throws BackendException if a database access error occurs
+   */
+  private boolean managerDeleteStatus(final Manager manager, final ProcessingStatus status) throws BackendException
+  {
+    try (final var preparedStatement = database.getConnection().prepareStatement("DELETE FROM " + database.getSchema() + ".manager WHERE uid = ? AND owner = ? AND status = ?"))
+    {
+      preparedStatement.setString(1, manager.getUid());
+
+      preparedStatement.setString(2, manager.getOwner());
+
+      preparedStatement.setInt(3, status.getValue());
+
+      return preparedStatement.executeUpdate() > 0;
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
   /**
    * Create a new lot in the manager table
    *
@@ -641,7 +1353,7 @@ public class HostDatasource extends Datasource
    */
   private void managerInsert(final Manager manager) throws BackendException
   {
-    try (final var preparedStatement = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + ".manager (uid, owner, created, accessed, lotType, status) VALUES (?, ?, ?, ?, ?, ?);"))
+    try (final var preparedStatement = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + ".manager (uid, owner, created, accessed, lotType, status, certificates, keyLength, priority) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);"))
     {
       preparedStatement.setString(1, manager.getUid());
 
@@ -655,6 +1367,12 @@ public class HostDatasource extends Datasource
 
       preparedStatement.setInt(6, manager.getStatus().getValue());
 
+      preparedStatement.setInt(7, manager.getCertificates());
+
+      preparedStatement.setInt(8, manager.getKeyLength());
+
+      preparedStatement.setInt(9, manager.getPriority());
+
       preparedStatement.execute();
     }
     catch (final SQLException exception)
@@ -663,6 +1381,155 @@ public class HostDatasource extends Datasource
     }
   }
 
+  /**
+   * Get the owners with ready lots satisfying the condition and room in their quota of running lots, the least served first: the
+   * fewest certificates running, then the oldest ready lot; the priority of the lots is set by their owners, so it orders the lots
+   * of an owner but never weighs the share of the owner
+   *
+   * @param condition the additional condition the ready lots must satisfy, or null for any ready lot
+   * @return the owners with ready lots, the least served first
+   * @throws BackendException if a database access error occurs
+   */
+  private List<String> managerFairOwners(final String condition) throws BackendException
+  {
+    final var running = ProcessingStatus.RUNNING.getValue();
+
+    final var ready = ProcessingStatus.READY.getValue();
+
+    final var sql = new StringBuilder();
+
+    sql.append("SELECT owner FROM ").append(database.getSchema()).append(".manager ")
+       .append("WHERE status = ").append(running).append(" OR (status = ").append(ready).append(condition != null ? " AND " + condition : "").append(") ")
+       .append("GROUP BY owner HAVING SUM(CASE WHEN status = ").append(ready).append(" THEN 1 ELSE 0 END) > 0 ");
+
+    if (quotaLots > 0)
+    {
+      sql.append("AND SUM(CASE WHEN status = ").append(running).append(" THEN 1 ELSE 0 END) < ").append(quotaLots).append(' ');
+    }
+
+    sql.append("ORDER BY SUM(CASE WHEN status = ").append(running).append(" THEN certificates ELSE 0 END), ")
+       .append("MIN(CASE WHEN status = ").append(ready).append(" THEN created END)");
+
+    try (final var statement = database.getConnection().createStatement();
+         final var resultSet = statement.executeQuery(sql.toString()))
+    {
+      final List<String> owners = new ArrayList<>();
+
+      while (resultSet.next())
+      {
+        owners.add(resultSet.getString("owner"));
+      }
+
+      return owners;
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Get the condition skipping the owners at their quota of running lots, one parameter per owner
+   *
+   * @param owners the owners at their quota of running lots
+   * @return the condition skipping the owners at their quota of running lots, or null if there is no such owner
+   */
+  private static String managerBusyCondition(final List<String> owners)
+  {
+    if (owners.isEmpty())
+    {
+      return null;
+    }
+
+    return owners.stream().map(owner -> "?").collect(Collectors.joining(", ", "owner NOT IN (", ")"));
+  }
+
+  /**
+   * Get the owners at their quota of running lots
+   *
+   * @return the owners at their quota of running lots, empty if there is no quota
+   * @throws BackendException if a database access error occurs
+   */
+  private List<String> managerBusyOwners() throws BackendException
+  {
+    if (quotaLots == 0)
+    {
+      return List.of();
+    }
+
+    try (final var preparedStatement = database.getConnection().prepareStatement("SELECT owner FROM " + database.getSchema() + ".manager WHERE status = ? GROUP BY owner HAVING COUNT(*) >= ?"))
+    {
+      preparedStatement.setInt(1, ProcessingStatus.RUNNING.getValue());
+
+      preparedStatement.setInt(2, quotaLots);
+
+      try (final var resultSet = preparedStatement.executeQuery())
+      {
+        final List<String> owners = new ArrayList<>();
+
+        while (resultSet.next())
+        {
+          owners.add(resultSet.getString("owner"));
+        }
+
+        return owners;
+      }
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Recover the position of the ready lot in the queue, by the scheduling policy, and the certificates of the lots ahead of it
+   *
+   * @param manager the lot's manager
+   * @param recover the monitoring of the lot
+   * @throws BackendException if a database access error occurs
+   */
+  private void managerQueuePosition(final Manager manager, final Recover recover) throws BackendException
+  {
+    final var created = "(SELECT created FROM " + database.getSchema() + ".manager WHERE uid = ? AND owner = ?)";
+
+    final String ahead;
+
+    switch (policy)
+    {
+      case SJF:
+        ahead = "(certificates < " + manager.getCertificates() + " OR (certificates = " + manager.getCertificates() + " AND created < " + created + "))";
+        break;
+      case PRIORITY:
+        ahead = "(priority > " + manager.getPriority() + " OR (priority = " + manager.getPriority() + " AND created < " + created + "))";
+        break;
+      default:
+        ahead = "created < " + created;
+    }
+
+    try (final var preparedStatement = database.getConnection().prepareStatement("SELECT COUNT(*), COALESCE(SUM(certificates), 0) FROM " + database.getSchema() + ".manager WHERE status = ? AND " + ahead))
+    {
+      preparedStatement.setInt(1, ProcessingStatus.READY.getValue());
+
+      preparedStatement.setString(2, manager.getUid());
+
+      preparedStatement.setString(3, manager.getOwner());
+
+      try (final var resultSet = preparedStatement.executeQuery())
+      {
+        if (resultSet.next())
+        {
+          recover.setPosition(resultSet.getInt(1) + 1);
+
+          recover.setBacklog(resultSet.getInt(2));
+        }
+      }
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
   /**
    * Recover the status of the lot in the manager table
    *
@@ -692,6 +1559,12 @@ public class HostDatasource extends Datasource
 
           manager.setStatus(resultSet.getInt("status"));
 
+          manager.setCertificates(resultSet.getInt("certificates"));
+
+          manager.setPriority(resultSet.getInt("priority"));
+
+          manager.setTables(leasedTables(manager.getUid()));
+
           return manager;
         }
 
@@ -705,7 +1578,36 @@ public class HostDatasource extends Datasource
   }
 
   /**
-   * Update the status of lot in the manager table
+   * Mark the running lot as cancelled in the manager table
+   *
+   * @param manager the lot's manager
+   * @return true if the lot was marked as cancelled, false if the lot is no longer running
+   * @throws BackendException if a database access error occurs
+   */
+  private boolean managerStatusCancel(final Manager manager) throws BackendException
+  {
+    try (final var preparedStatement = database.getConnection().prepareStatement("UPDATE " + database.getSchema() + ".manager SET accessed = ?, status = ? WHERE uid = ? AND owner = ? AND status = ?"))
+    {
+      preparedStatement.setObject(1, LocalDateTime.now(), Types.TIMESTAMP);
+
+      preparedStatement.setInt(2, ProcessingStatus.CANCELLED.getValue());
+
+      preparedStatement.setString(3, manager.getUid());
+
+      preparedStatement.setString(4, manager.getOwner());
+
+      preparedStatement.setInt(5, ProcessingStatus.RUNNING.getValue());
+
+      return preparedStatement.executeUpdate() > 0;
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Update the status of lot in the manager table, unless the lot was cancelled
    *
    * @param uid the identifier of the lot
    * @param owner the identifier of the owner
@@ -713,7 +1615,7 @@ public class HostDatasource extends Datasource
    */
   public void managerStatusUpdate(final String uid, final String owner, final ProcessingStatus status) throws BackendException
   {
-    try (final var preparedStatement = database.getConnection().prepareStatement("UPDATE " + database.getSchema() + ".manager SET accessed = ?, status = ? WHERE uid = ? AND owner = ?"))
+    try (final var preparedStatement = database.getConnection().prepareStatement("UPDATE " + database.getSchema() + ".manager SET accessed = ?, status = ? WHERE uid = ? AND owner = ? AND status <> ?"))
     {
       preparedStatement.setObject(1, LocalDateTime.now(), Types.TIMESTAMP);
 
@@ -723,6 +1625,31 @@ public class HostDatasource extends Datasource
 
       preparedStatement.setString(4, owner);
 
+      preparedStatement.setInt(5, ProcessingStatus.CANCELLED.getValue());
+
+      preparedStatement.executeUpdate();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Transfer the lots of a claim to another claim
+   *
+   * @param claimant the identifier of the claim that gives the lots
+   * @param collector the identifier of the claim that receives the lots
+   * @throws BackendException if a database access error occurs
+   */
+  public void managerTransferClaim(final String claimant, final String collector) throws BackendException
+  {
+    try (final var preparedStatement = database.getConnection().prepareStatement("UPDATE " + database.getSchema() + ".manager SET claimant = ? WHERE claimant = ?"))
+    {
+      preparedStatement.setString(1, collector);
+
+      preparedStatement.setString(2, claimant);
+
       preparedStatement.executeUpdate();
     }
     catch (final SQLException exception)
@@ -756,38 +1683,309 @@ public class HostDatasource extends Datasource
   }
 
   /**
-   * Get the next certificate to be processed
+   * Merge back the certificates of a half of the lot, split to isolate a failure of the Iris, dropping the half
+   *
+   * @param manager the lot's manager
+   * @param half the half's manager
+   * @throws BackendException if a database access error occurs
+   */
+  public void mergeLot(final Manager manager, final Manager half) throws BackendException
+  {
+    try (final var statement = database.getConnection().createStatement())
+    {
+      statement.addBatch("DELETE FROM " + database.getSchema() + "." + manager.getTables() + "Ident WHERE certificateKey IN (SELECT certificateKey FROM " + database.getSchema() + "." + half.getTables() + "Ident);");
+
+      statement.addBatch("DELETE FROM " + database.getSchema() + "." + manager.getTables() + "MedCod WHERE certificateKey IN (SELECT certificateKey FROM " + database.getSchema() + "." + half.getTables() + "Ident);");
+
+      statement.addBatch("INSERT INTO " + database.getSchema() + "." + manager.getTables() + "Ident SELECT * FROM " + database.getSchema() + "." + half.getTables() + "Ident;");
+
+      statement.addBatch("INSERT INTO " + database.getSchema() + "." + manager.getTables() + "MedCod SELECT * FROM " + database.getSchema() + "." + half.getTables() + "MedCod;");
+
+      statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + half.getTables() + "Ident CASCADE;");
+
+      statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + half.getTables() + "MedCod CASCADE;");
+
+      statement.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Claim the next lot to be processed, moving it atomically from READY to RUNNING
    *
-   * @return the next certificate to be processed
+   * @return the next lot to be processed, or null if there is no lot ready
    */
   public Manager nextCertificate() throws BackendException
   {
-    try (final var preparedStatement = database.getConnection().prepareStatement("SELECT * FROM " + database.getSchema() + ".manager WHERE status = ? ORDER BY created"))
+    return managerClaim(null);
+  }
+
+  /**
+   * Claim the next lot that can be packed with other lots in a single lot, moving it atomically from READY to RUNNING
+   *
+   * @param certificates the maximum number of certificates of a lot to be packed
+   * @return the next lot that can be packed, or null if there is no such lot ready
+   */
+  public Manager nextPackableLot(final int certificates) throws BackendException
+  {
+    return managerClaim("lotType = " + LotType.MULTIPLE.getValue() + " AND certificates <= " + certificates + " AND keyLength <= " + (KEY_LENGTH - PACK_PREFIX_LENGTH));
+  }
+
+  /**
+   * Claim the next unique certificate to be processed, moving it atomically from READY to RUNNING
+   *
+   * @return the next unique certificate to be processed, or null if there is no unique certificate ready
+   */
+  public Manager nextUniqueLot() throws BackendException
+  {
+    return managerClaim("lotType = " + LotType.UNIQUE.getValue());
+  }
+
+  /**
+   * Parse a count of the configuration, such as a quota per owner
+   *
+   * @param count the count, or blank for none
+   * @param key the key in web.xml
+   * @return the count, or 0 for none
+   * @throws BackendException if the count is invalid
+   */
+  private static int parseCount(final String count, final String key) throws BackendException
+  {
+    if (StringUtils.isBlank(count))
     {
-      preparedStatement.setInt(1, ProcessingStatus.READY.getValue());
+      return 0;
+    }
 
-      try (final var resultSet = preparedStatement.executeQuery())
+    try
+    {
+      final var value = Integer.parseInt(count);
+
+      if (value < 0)
       {
-        if (resultSet.next())
+        throw new BackendException(key + " is invalid");
+      }
+
+      return value;
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException(key + " is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Pack the lots in a single lot, prefixing the certificate keys of each lot with its position in the pack
+   *
+   * @param manager the pack's manager, with the lots to be packed
+   * @throws BackendException if a database access error occurs
+   */
+  public void packLots(final Manager manager) throws BackendException
+  {
+    manager.setUid(RandomStringUtils.randomAlphabetic(30));
+
+    manager.setTables(null);
+
+    manager.setOwner(RandomStringUtils.randomAlphabetic(32));
+
+    manager.setLotType(LotType.MULTIPLE);
+
+    manager.setStatus(ProcessingStatus.RUNNING);
+
+    manager.setCertificates(manager.getLots().stream().mapToInt(Manager::getCertificates).sum());
+
+    manager.setKeyLength(KEY_LENGTH);
+
+    // The packs are claimed as often as the small lots, so their tables are leased from the pool as well
+
+    manager.setTables(leaseTables(manager.getUid()));
+
+    try (final var statement = database.getConnection().createStatement())
+    {
+      for (var index = 0; index < manager.getLots().size(); index++)
+      {
+        final var lot = manager.getLots().get(index).getTables();
+
+        final var prefix = String.format(PACK_PREFIX, index);
+
+        statement.addBatch("INSERT INTO " + database.getSchema() + "." + manager.getTables() + "Ident (certificateKey, " + IDENT_COLUMNS + ") SELECT CONCAT('" + prefix + "', certificateKey), " + IDENT_COLUMNS + " FROM " + database.getSchema() + "." + lot + "Ident;");
+
+        statement.addBatch("INSERT INTO " + database.getSchema() + "." + manager.getTables() + "MedCod (certificateKey, " + MEDCOD_COLUMNS + ") SELECT CONCAT('" + prefix + "', certificateKey), " + MEDCOD_COLUMNS + " FROM " + database.getSchema() + "." + lot + "MedCod;");
+      }
+
+      statement.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      // The lots of the pack are handed back by the caller, so the tables of the pack are never read and are released at once
+
+      releaseTables(manager);
+
+      throw new BackendException(exception);
+    }
+
+    try
+    {
+      managerInsert(manager);
+    }
+    catch (final BackendException exception)
+    {
+      releaseTables(manager);
+
+      throw exception;
+    }
+  }
+
+  /**
+   * Read the certificates with their lines by two queries, the lines joined to their certificates by the certificate key as they are
+   * read, so the certificates cost two sequential scans instead of a query for the lines of each certificate
+   *
+   * @param sqlIdent the query of the Ident rows, ordered by the certificate key
+   * @param sqlMedCod the query of the MedCod rows, ordered by the line number within each certificate
+   * @param coded read the columns coded by the Iris, besides the columns submitted
+   * @param parameters the parameters of both queries
+   * @return the list of certificates
+   * @throws BackendException if a database access error occurs
+   */
+  private List<Ident> readCertificates(final String sqlIdent, final String sqlMedCod, final boolean coded, final String... parameters) throws BackendException
+  {
+    final List<Ident> certificates = new LinkedList<>();
+
+    try (final var preparedStatementIdent = database.getConnection().prepareStatement(sqlIdent);
+         final var preparedStatementMedCod = database.getConnection().prepareStatement(sqlMedCod))
+    {
+      for (var index = 0; index < parameters.length; index++)
+      {
+        preparedStatementIdent.setString(index + 1, parameters[index]);
+
+        preparedStatementMedCod.setString(index + 1, parameters[index]);
+      }
+
+      try (final var resultSet = preparedStatementIdent.executeQuery();
+           final var resultSetMedCod = preparedStatementMedCod.executeQuery())
+      {
+        final Map<String, Ident> keys = new HashMap<>();
+
+        while (resultSet.next())
         {
-          final var manager = new Manager();
+          final var ident = new Ident(dateTimeFormatter);
 
-          manager.setUid(resultSet.getString("uid"));
+          ident.setCertificateKey(resultSet.getString("certificateKey"));
 
-          manager.setOwner(resultSet.getString("owner"));
+          ident.setDateBirth(resultSet.getTimestamp("dateBirth"));
 
-          manager.setLotType(resultSet.getInt("lotType"));
+          ident.setDateDeath(resultSet.getTimestamp("dateDeath"));
 
-          return manager;
+          ident.setAge(resultSet.getString("age"));
+
+          ident.setSex(resultSet.getString("sex"));
+
+          ident.setMannerOfDeath(resultSet.getString("mannerOfDeath"));
+
+          ident.setStatus(resultSet.getString("status"));
+
+          ident.setReject(resultSet.getString("reject"));
+
+          ident.setCoding(resultSet.getString("coding"));
+
+          ident.setCodingFlags(resultSet.getString("codingFlags"));
+
+          ident.setAutopsyRequested(resultSet.getString("autopsyRequested"));
+
+          ident.setAutopsyUsed(resultSet.getString("autopsyUsed"));
+
+          ident.setRecentSurgery(resultSet.getString("recentSurgery"));
+
+          ident.setDateOfSurgery(resultSet.getTimestamp("dateOfSurgery"));
+
+          ident.setDateOfInjury(resultSet.getTimestamp("dateOfInjury"));
+
+          ident.setPlaceOfOccurrence(resultSet.getString("placeOfOccurrence"));
+
+          ident.setActivityCode(resultSet.getString("activityCode"));
+
+          ident.setPregnancy(resultSet.getString("pregnancy"));
+
+          ident.setPregnancyContributeDeath(resultSet.getString("pregnancyContributeDeath"));
+
+          ident.setStillbirth(resultSet.getString("stillbirth"));
+
+          ident.setMultiplePregnancy(resultSet.getString("multiplePregnancy"));
+
+          ident.setCompletedWeeks(resultSet.getString("completedWeeks"));
+
+          ident.setBirthWeight(resultSet.getString("birthWeight"));
+
+          ident.setAgeOfMother(resultSet.getString("ageOfMother"));
+
+          if (coded)
+          {
+            ident.setLastChange(resultSet.getTimestamp("lastChange"));
+
+            ident.setUcCode(new UCCode(resultSet.getString("ucCode")));
+
+            ident.setMainInjury(resultSet.getString("mainInjury"));
+
+            ident.setCodingVersion(resultSet.getString("codingVersion"));
+
+            ident.setSelectedCodes(resultSet.getString("selectedCodes"));
+
+            ident.setSubstitutedCodes(resultSet.getString("substitutedCodes"));
+
+            ident.setErnCodes(resultSet.getString("ernCodes"));
+
+            ident.setAcmeCodes(resultSet.getString("acmeCodes"));
+
+            ident.setMultipleCodes(resultSet.getString("multipleCodes"));
+
+            ident.setToDoList(resultSet.getString("toDoList"));
+          }
+
+          ident.setMedCods(new LinkedList<>());
+
+          keys.put(ident.getCertificateKey(), ident);
+
+          certificates.add(ident);
         }
 
-        return null;
+        // The lines are joined by the key, not by the order of the keys, which follows the collation of the database and not the
+        // order of the strings, so the lines without certificate are skipped instead of holding back the lines of the next ones
+
+        while (resultSetMedCod.next())
+        {
+          final var ident = keys.get(resultSetMedCod.getString("certificateKey"));
+
+          if (ident != null)
+          {
+            final var medCod = new MedCod();
+
+            medCod.setCertificateKey(resultSetMedCod.getString("certificateKey"));
+
+            medCod.setLineNb(resultSetMedCod.getString("lineNb"));
+
+            medCod.setTextLine(resultSetMedCod.getString("textLine"));
+
+            medCod.setCodeLine(resultSetMedCod.getString("codeLine"));
+
+            medCod.setIntervalLine(resultSetMedCod.getString("intervalLine"));
+
+            medCod.setCodeOnly(resultSetMedCod.getString("codeOnly"));
+
+            medCod.setLineCoded(resultSetMedCod.getString("lineCoded"));
+
+            ident.getMedCods().add(medCod);
+          }
+        }
       }
     }
     catch (final SQLException exception)
     {
       throw new BackendException(exception);
     }
+
+    return certificates;
   }
 
   /**
@@ -805,51 +2003,47 @@ public class HostDatasource extends Datasource
 
     final var iris = new Iris();
 
-    if (manager.getStatus() == ProcessingStatus.READY || manager.getStatus() == ProcessingStatus.RUNNING)
+    if (manager.getStatus() == ProcessingStatus.READY || manager.getStatus() == ProcessingStatus.RUNNING || manager.getStatus() == ProcessingStatus.CANCELLED)
     {
       recover.setStatus(manager.getStatus().toString());
 
+      recover.setCertificates(manager.getCertificates());
+
+      // The lots shared fairly are claimed from the owner least served at each claim, so the queue has no position to report
+
+      if (manager.getStatus() == ProcessingStatus.READY && !fair)
+      {
+        managerQueuePosition(manager, recover);
+      }
+
       managerUpdateAccessed(recover.getUid(), owner);
 
       iris.setRecover(recover);
     }
     else
     {
-      if (manager.getLotType() == LotType.UNIQUE)
+      if (manager.getStatus() == ProcessingStatus.QUARANTINED)
       {
-        iris.setCertificates(recoverCertificateUnique(manager.getUid()));
-
-        try (final var statement = database.getConnection().createStatement())
-        {
-          statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey = '" + manager.getUid() + "';");
-
-          statement.addBatch("DELETE FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey = '" + manager.getUid() + "';");
+        recover.setStatus(manager.getStatus().toString());
 
-          statement.executeBatch();
-        }
-        catch (final SQLException exception)
-        {
-          throw new BackendException(exception);
-        }
+        iris.setRecover(recover);
+      }
+
+      if (manager.getLotType() == LotType.UNIQUE)
+      {
+        iris.setCertificates(recoverCertificateUnique(manager.getUid()));
+      }
+      else if (isJournaled(manager))
+      {
+        iris.setCertificates(journal.read(manager.getUid(), Journal.RESULT, dateTimeFormatter));
       }
       else
       {
-        iris.setCertificates(recoverCertificatesLot(manager.getUid()));
-
-        try (final var statement = database.getConnection().createStatement())
-        {
-          statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + manager.getUid() + "Ident CASCADE;");
-
-          statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + manager.getUid() +  "MedCod CASCADE;");
-
-          statement.executeBatch();
-        }
-        catch (final SQLException exception)
-        {
-          throw new BackendException(exception);
-        }
+        iris.setCertificates(recoverCertificatesLot(manager.getTables()));
       }
 
+      discardLot(manager);
+
       managerDelete(manager.getUid(), manager.getOwner());
     }
 
@@ -865,119 +2059,65 @@ public class HostDatasource extends Datasource
    */
   private List<Ident> recoverCertificatesLot(final String lot) throws BackendException
   {
-    try (final var resultSet = database.getConnection().createStatement().executeQuery("SELECT * FROM " + database.getSchema() + "." + lot + "Ident");
-         final var preparedStatement = database.getConnection().prepareStatement("SELECT * FROM " + database.getSchema() + "." + lot + "MedCod WHERE certificateKey = ?"))
-    {
-      final List<Ident> list = new LinkedList<>();
-
-      while (resultSet.next())
-      {
-        final var ident = new Ident(dateTimeFormatter);
-
-        ident.setCertificateKey(resultSet.getString("certificateKey"));
-
-        ident.setLastChange(resultSet.getTimestamp("lastChange"));
-
-        ident.setDateBirth(resultSet.getTimestamp("dateBirth"));
-
-        ident.setDateDeath(resultSet.getTimestamp("dateDeath"));
-
-        ident.setAge(resultSet.getString("age"));
-
-        ident.setSex(resultSet.getString("sex"));
-
-        ident.setMannerOfDeath(resultSet.getString("mannerOfDeath"));
-
-        ident.setUcCode(new UCCode(resultSet.getString("ucCode")));
-
-        ident.setMainInjury(resultSet.getString("mainInjury"));
-
-        ident.setStatus(resultSet.getString("status"));
-
-        ident.setReject(resultSet.getString("reject"));
-
-        ident.setCoding(resultSet.getString("coding"));
+    final var faults = recoverFaultsLot(lot);
 
-        ident.setCodingVersion(resultSet.getString("codingVersion"));
+    final var certificates = readCertificates("SELECT * FROM " + database.getSchema() + "." + lot + "Ident ORDER BY certificateKey",
+                                              "SELECT * FROM " + database.getSchema() + "." + lot + "MedCod ORDER BY certificateKey, lineNb",
+                                              true);
 
-        ident.setCodingFlags(resultSet.getString("codingFlags"));
-
-        ident.setSelectedCodes(resultSet.getString("selectedCodes"));
-
-        ident.setSubstitutedCodes(resultSet.getString("substitutedCodes"));
-
-        ident.setErnCodes(resultSet.getString("ernCodes"));
-
-        ident.setAcmeCodes(resultSet.getString("acmeCodes"));
-
-        ident.setMultipleCodes(resultSet.getString("multipleCodes"));
-
-        ident.setToDoList(resultSet.getString("toDoList"));
-
-        ident.setAutopsyRequested(resultSet.getString("autopsyRequested"));
-
-        ident.setAutopsyUsed(resultSet.getString("autopsyUsed"));
-
-        ident.setRecentSurgery(resultSet.getString("recentSurgery"));
-
-        ident.setDateOfSurgery(resultSet.getTimestamp("dateOfSurgery"));
-
-        ident.setDateOfInjury(resultSet.getTimestamp("dateOfInjury"));
-
-        ident.setPlaceOfOccurrence(resultSet.getString("placeOfOccurrence"));
-
-        ident.setActivityCode(resultSet.getString("activityCode"));
-
-        ident.setPregnancy(resultSet.getString("pregnancy"));
-
-        ident.setPregnancyContributeDeath(resultSet.getString("pregnancyContributeDeath"));
-
-        ident.setStillbirth(resultSet.getString("stillbirth"));
+    for (Ident ident : certificates)
+    {
+      ident.setFaults(faults.get(ident.getCertificateKey()));
+    }
 
-        ident.setMultiplePregnancy(resultSet.getString("multiplePregnancy"));
+    return certificates;
+  }
 
-        ident.setCompletedWeeks(resultSet.getString("completedWeeks"));
+  /**
+   * Recover the certificates keep in the lot
+   *
+   * @param uid the user's request identifier
+   * @return the list of certificates
+   * @throws BackendException if a database access error occurs
+   */
+  public List<Ident> recoverCertificateUnique(final String uid) throws BackendException, FrontendException
+  {
+    final var certificates = readCertificates("SELECT * FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey = ?",
+                                              "SELECT * FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey = ? ORDER BY lineNb",
+                                              true, uid);
 
-        ident.setBirthWeight(resultSet.getString("birthWeight"));
+    if (certificates.isEmpty())
+    {
+      throw new FrontendException("Certificate not found");
+    }
 
-        ident.setAgeOfMother(resultSet.getString("ageOfMother"));
+    return certificates;
+  }
 
-        preparedStatement.clearParameters();
+  /**
+   * Recover the faults of the certificates of the lot isolated as the cause of a failure of the Iris
+   *
+   * @param lot the lot's name
+   * @return the faults of the certificates, by certificate key
+   * @throws BackendException if a database access error occurs
+   */
+  private Map<String, List<Fault>> recoverFaultsLot(final String lot) throws BackendException
+  {
+    try (final var preparedStatement = database.getConnection().prepareStatement("SELECT certificateKey, message FROM " + database.getSchema() + ".fault WHERE uid = ?"))
+    {
+      preparedStatement.setString(1, lot);
 
-        preparedStatement.setString(1, ident.getCertificateKey());
+      final Map<String, List<Fault>> faults = new HashMap<>();
 
-        try (final var resultSetMedCod = preparedStatement.executeQuery())
+      try (final var resultSet = preparedStatement.executeQuery())
+      {
+        while (resultSet.next())
         {
-          List<MedCod> medCods = new LinkedList<>();
-
-          while (resultSetMedCod.next())
-          {
-            final var medCod = new MedCod();
-
-            medCod.setCertificateKey(resultSetMedCod.getString("certificateKey"));
-
-            medCod.setLineNb(resultSetMedCod.getString("lineNb"));
-
-            medCod.setTextLine(resultSetMedCod.getString("textLine"));
-
-            medCod.setCodeLine(resultSetMedCod.getString("codeLine"));
-
-            medCod.setIntervalLine(resultSetMedCod.getString("intervalLine"));
-
-            medCod.setCodeOnly(resultSetMedCod.getString("codeOnly"));
-
-            medCod.setLineCoded(resultSetMedCod.getString("lineCoded"));
-
-            medCods.add(medCod);
-          }
-
-          ident.setMedCods(medCods);
+          faults.computeIfAbsent(resultSet.getString("certificateKey"), key -> new LinkedList<>()).add(new Fault("certificateKey", resultSet.getString("message")));
         }
-
-        list.add(ident);
       }
 
-      return list;
+      return faults;
     }
     catch (final SQLException exception)
     {
@@ -986,137 +2126,279 @@ public class HostDatasource extends Datasource
   }
 
   /**
-   * Recover the certificates keep in the lot
+   * Release the pair of lot tables of the lot: a leased pair is emptied and returned to the pool, any other pair is dropped
    *
-   * @param uid the user's request identifier
-   * @return the list of certificates
+   * @param manager the lot's manager
    * @throws BackendException if a database access error occurs
    */
-  public List<Ident> recoverCertificateUnique(final String uid) throws BackendException, FrontendException
+  private void releaseTables(final Manager manager) throws BackendException
   {
-    try (final var preparedStatementIdent = database.getConnection().prepareStatement("SELECT * FROM " + database.getSchema() + "." + UNIQUE_TABLES + "Ident WHERE certificateKey = ?;");
-         final var preparedStatementMedCod = database.getConnection().prepareStatement("SELECT * FROM " + database.getSchema() + "." + UNIQUE_TABLES + "MedCod WHERE certificateKey = ?;"))
-    {
-      preparedStatementIdent.setString(1, uid);
+    final var leased = leasedTables(manager.getUid());
 
-      preparedStatementMedCod.setString(1, uid);
+    final var lot = leased != null ? leased : manager.getTables();
 
-      try (final var resultSet = preparedStatementIdent.executeQuery())
+    try (final var statement = database.getConnection().createStatement())
+    {
+      if (leased != null)
       {
-        if (resultSet.next())
-        {
-          final var ident = new Ident(dateTimeFormatter);
-
-          ident.setCertificateKey(uid);
+        // TRUNCATE still rewrites the storage of the tables, a new relfilenode on PostgreSQL and a drop and recreate on MySQL, under an
+        // exclusive lock, but only on the pair of this lot, and the definitions, indexes and grants of the pair are kept; the pair is
+        // freed only once emptied
 
-          ident.setLastChange(resultSet.getTimestamp("lastChange"));
+        statement.addBatch("TRUNCATE TABLE " + database.getSchema() + "." + lot + "Ident;");
 
-          ident.setDateBirth(resultSet.getTimestamp("dateBirth"));
+        statement.addBatch("TRUNCATE TABLE " + database.getSchema() + "." + lot + "MedCod;");
 
-          ident.setDateDeath(resultSet.getTimestamp("dateDeath"));
+        statement.addBatch("UPDATE " + database.getSchema() + ".lease SET holder = NULL, leased = NULL WHERE holder = '" + manager.getUid() + "';");
+      }
+      else
+      {
+        statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + lot + "Ident CASCADE;");
 
-          ident.setAge(resultSet.getString("age"));
+        statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + lot + "MedCod CASCADE;");
+      }
 
-          ident.setSex(resultSet.getString("sex"));
+      statement.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
 
-          ident.setMannerOfDeath(resultSet.getString("mannerOfDeath"));
+  /**
+   * Configure if the ready lots are shared fairly between the owners
+   *
+   * @param fair the ready lots are shared fairly between the owners
+   */
+  public void setFair(final String fair)
+  {
+    this.fair = "true".equals(fair);
+  }
 
-          ident.setUcCode(new UCCode(resultSet.getString("ucCode")));
+  /**
+   * Set the directory of the journal, the local store of the certificates of the lots of multiple certificates, staged from it
+   * straight into the MDB file and coded into it, so the host database only keeps the manager table of these lots; the files left by
+   * the lots of a former run are deleted
+   *
+   * @param journal the directory of the journal, or blank to keep the certificates in the host database
+   * @throws BackendException if the directory is invalid, or its files can not be deleted
+   */
+  public void setJournal(final String journal) throws BackendException
+  {
+    if (StringUtils.isBlank(journal))
+    {
+      this.journal = null;
 
-          ident.setMainInjury(resultSet.getString("mainInjury"));
+      return;
+    }
 
-          ident.setStatus(resultSet.getString("status"));
+    final var directory = new File(journal);
 
-          ident.setReject(resultSet.getString("reject"));
+    try
+    {
+      if (!directory.isDirectory())
+      {
+        throw new BackendException("Directory in host.OLEDB.journal not found");
+      }
 
-          ident.setCoding(resultSet.getString("coding"));
+      if (!directory.canWrite())
+      {
+        throw new BackendException("Directory in host.OLEDB.journal without permission of writing");
+      }
+    }
+    catch (final SecurityException securityException)
+    {
+      throw new BackendException("host.OLEDB.journal is invalid", securityException);
+    }
 
-          ident.setCodingVersion(resultSet.getString("codingVersion"));
+    // The manager table is created again at the startup, so the files of the lots of the former run are never reached again
 
-          ident.setCodingFlags(resultSet.getString("codingFlags"));
+    this.journal = new Journal(directory);
 
-          ident.setSelectedCodes(resultSet.getString("selectedCodes"));
+    this.journal.clear();
+  }
 
-          ident.setSubstitutedCodes(resultSet.getString("substitutedCodes"));
+  /**
+   * Set the listener of the lots submitted to the manager table
+   *
+   * @param listener the listener of the lots submitted to the manager table
+   */
+  public void setListener(final Consumer<Manager> listener)
+  {
+    this.listener = listener;
+  }
 
-          ident.setErnCodes(resultSet.getString("ernCodes"));
+  /**
+   * Set the number of pairs of lot tables created in advance and leased to the lots, creating them
+   *
+   * @param poolSize the number of pairs of lot tables, or 0 to create and drop the tables of each lot
+   * @throws BackendException if the number of pairs is invalid or a database access error occurs
+   */
+  public void setPoolSize(final String poolSize) throws BackendException
+  {
+    this.poolSize = parseCount(poolSize, "host.iris.pool");
 
-          ident.setAcmeCodes(resultSet.getString("acmeCodes"));
+    for (var index = 0; index < this.poolSize; index++)
+    {
+      final var lot = RandomStringUtils.randomAlphabetic(30);
 
-          ident.setMultipleCodes(resultSet.getString("multipleCodes"));
+      createCertificatesTable(lot);
 
-          ident.setToDoList(resultSet.getString("toDoList"));
+      leaseInsert(lot, null);
+    }
+  }
 
-          ident.setAutopsyRequested(resultSet.getString("autopsyRequested"));
+  /**
+   * Set the maximum number of certificates queued or running per owner
+   *
+   * @param quotaCertificates the maximum number of certificates queued or running per owner, or 0 for no limit
+   * @throws BackendException if the maximum number of certificates is invalid
+   */
+  public void setQuotaCertificates(final String quotaCertificates) throws BackendException
+  {
+    this.quotaCertificates = parseCount(quotaCertificates, "host.iris.quota.certificates");
+  }
 
-          ident.setAutopsyUsed(resultSet.getString("autopsyUsed"));
+  /**
+   * Set the maximum number of lots running at the same time per owner
+   *
+   * @param quotaLots the maximum number of lots running at the same time per owner, or 0 for no limit
+   * @throws BackendException if the maximum number of lots is invalid
+   */
+  public void setQuotaLots(final String quotaLots) throws BackendException
+  {
+    this.quotaLots = parseCount(quotaLots, "host.iris.quota.lots");
+  }
 
-          ident.setRecentSurgery(resultSet.getString("recentSurgery"));
+  /**
+   * Set the order in which the ready lots are claimed to be processed
+   *
+   * @param policy the order in which the ready lots are claimed: FIFO, SJF or PRIORITY
+   * @throws BackendException if the scheduling policy is invalid
+   */
+  public void setSchedulingPolicy(final String policy) throws BackendException
+  {
+    if (StringUtils.isBlank(policy))
+    {
+      return;
+    }
 
-          ident.setDateOfSurgery(resultSet.getTimestamp("dateOfSurgery"));
+    try
+    {
+      this.policy = SchedulingPolicy.valueOf(policy);
+    }
+    catch (final IllegalArgumentException illegalArgumentException)
+    {
+      throw new BackendException("host.iris.scheduler is invalid", illegalArgumentException);
+    }
+  }
 
-          ident.setDateOfInjury(resultSet.getTimestamp("dateOfInjury"));
+  /**
+   * Split a half of the lot to isolate a failure of the Iris, copying its certificates to the half's tables
+   *
+   * @param manager the lot's manager
+   * @param keys the keys of the certificates of the half
+   * @return the half's manager
+   * @throws BackendException if a database access error occurs
+   */
+  public Manager splitLot(final Manager manager, final List<String> keys) throws BackendException
+  {
+    final var half = new Manager();
 
-          ident.setPlaceOfOccurrence(resultSet.getString("placeOfOccurrence"));
+    half.setUid(RandomStringUtils.randomAlphabetic(30));
 
-          ident.setActivityCode(resultSet.getString("activityCode"));
+    half.setOwner(manager.getOwner());
 
-          ident.setPregnancy(resultSet.getString("pregnancy"));
+    half.setLotType(LotType.MULTIPLE);
 
-          ident.setPregnancyContributeDeath(resultSet.getString("pregnancyContributeDeath"));
+    half.setStatus(ProcessingStatus.RUNNING);
 
-          ident.setStillbirth(resultSet.getString("stillbirth"));
+    half.setCertificates(keys.size());
 
-          ident.setMultiplePregnancy(resultSet.getString("multiplePregnancy"));
+    half.setKeyLength(KEY_LENGTH);
 
-          ident.setCompletedWeeks(resultSet.getString("completedWeeks"));
+    try (final var statement = database.getConnection().createStatement())
+    {
+      statement.addBatch(database.lotIdentCreateScript(half.getUid()));
 
-          ident.setBirthWeight(resultSet.getString("birthWeight"));
+      statement.addBatch(database.lotMedCodCreateScript(half.getUid()));
 
-          ident.setAgeOfMother(resultSet.getString("ageOfMother"));
+      statement.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
 
-          try (final var resultSetMedCod = preparedStatementMedCod.executeQuery())
-          {
-            List<MedCod> medCods = new LinkedList<>();
+    try (final var preparedStatementIdent = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + "." + half.getTables() + "Ident SELECT * FROM " + database.getSchema() + "." + manager.getTables() + "Ident WHERE certificateKey = ?;");
+         final var preparedStatementMedCod = database.getConnection().prepareStatement("INSERT INTO " + database.getSchema() + "." + half.getTables() + "MedCod SELECT * FROM " + database.getSchema() + "." + manager.getTables() + "MedCod WHERE certificateKey = ?;"))
+    {
+      for (String key : keys)
+      {
+        preparedStatementIdent.setString(1, key);
 
-            while (resultSetMedCod.next())
-            {
-              final var medCod = new MedCod();
+        preparedStatementIdent.addBatch();
 
-              medCod.setCertificateKey(resultSetMedCod.getString("certificateKey"));
+        preparedStatementMedCod.setString(1, key);
 
-              medCod.setLineNb(resultSetMedCod.getString("lineNb"));
+        preparedStatementMedCod.addBatch();
+      }
 
-              medCod.setTextLine(resultSetMedCod.getString("textLine"));
+      preparedStatementIdent.executeBatch();
 
-              medCod.setCodeLine(resultSetMedCod.getString("codeLine"));
+      preparedStatementMedCod.executeBatch();
+    }
+    catch (final SQLException exception)
+    {
+      throw new BackendException(exception);
+    }
 
-              medCod.setIntervalLine(resultSetMedCod.getString("intervalLine"));
+    return half;
+  }
 
-              medCod.setCodeOnly(resultSetMedCod.getString("codeOnly"));
+  /**
+   * Split the results of the pack back into the lots packed, removing the prefix of the certificate keys, and update the status of the lots
+   *
+   * @param manager the pack's manager, with the lots packed
+   * @param status the status of the lots, FINISHED if coded or QUARANTINED if the pack failed
+   * @throws BackendException if a database access error occurs
+   */
+  public void unpackLots(final Manager manager, final ProcessingStatus status) throws BackendException
+  {
+    try (final var statement = database.getConnection().createStatement())
+    {
+      for (var index = 0; index < manager.getLots().size(); index++)
+      {
+        final var lot = manager.getLots().get(index);
 
-              medCod.setLineCoded(resultSetMedCod.getString("lineCoded"));
+        final var prefix = String.format(PACK_PREFIX, index);
 
-              medCods.add(medCod);
-            }
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + lot.getTables() + "Ident;");
 
-            ident.setMedCods(medCods);
-          }
+        statement.addBatch("DELETE FROM " + database.getSchema() + "." + lot.getTables() + "MedCod;");
 
-          final List<Ident> list = new LinkedList<>();
+        statement.addBatch("INSERT INTO " + database.getSchema() + "." + lot.getTables() + "Ident (certificateKey, " + IDENT_COLUMNS + ") SELECT SUBSTRING(certificateKey, " + (PACK_PREFIX_LENGTH + 1) + "), " + IDENT_COLUMNS + " FROM " + database.getSchema() + "." + manager.getTables() + "Ident WHERE certificateKey LIKE '" + prefix + "%';");
 
-          list.add(ident);
+        statement.addBatch("INSERT INTO " + database.getSchema() + "." + lot.getTables() + "MedCod (certificateKey, " + MEDCOD_COLUMNS + ") SELECT SUBSTRING(certificateKey, " + (PACK_PREFIX_LENGTH + 1) + "), " + MEDCOD_COLUMNS + " FROM " + database.getSchema() + "." + manager.getTables() + "MedCod WHERE certificateKey LIKE '" + prefix + "%';");
 
-          return list;
-        }
+        statement.addBatch("INSERT INTO " + database.getSchema() + ".fault (uid, certificateKey, message) SELECT '" + lot.getUid() + "', SUBSTRING(certificateKey, " + (PACK_PREFIX_LENGTH + 1) + "), message FROM " + database.getSchema() + ".fault WHERE uid = '" + manager.getUid() + "' AND certificateKey LIKE '" + prefix + "%';");
 
-        throw new FrontendException("Certificate not found");
+        statement.addBatch("UPDATE " + database.getSchema() + ".manager SET status = " + status.getValue() + " WHERE uid = '" + lot.getUid() + "' AND owner = '" + lot.getOwner() + "' AND status <> " + ProcessingStatus.CANCELLED.getValue() + ";");
       }
+
+      statement.addBatch("DELETE FROM " + database.getSchema() + ".fault WHERE uid = '" + manager.getUid() + "';");
+
+      statement.executeBatch();
     }
     catch (final SQLException exception)
     {
       throw new BackendException(exception);
     }
+
+    releaseTables(manager);
+
+    managerDelete(manager.getUid(), manager.getOwner());
   }
 
   /* (non-Javadoc)
@@ -1148,10 +2430,37 @@ public class HostDatasource extends Datasource
         }
       }
 
+      if (database.existsTable("lease"))
+      {
+        try (final var resultSet = database.getConnection().createStatement().executeQuery("SELECT lot FROM " + database.getSchema() + ".lease"))
+        {
+          while (resultSet.next())
+          {
+            statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + resultSet.getString("lot") + "Ident CASCADE;");
+
+            statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + "." + resultSet.getString("lot") + "MedCod CASCADE;");
+          }
+        }
+        catch (final SQLException exception)
+        {
+          throw new BackendException(exception);
+        }
+      }
+
+      statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + ".lease CASCADE;");
+
       statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + ".manager CASCADE;");
 
+      statement.addBatch("DROP TABLE IF EXISTS " + database.getSchema() + ".fault CASCADE;");
+
       statement.addBatch(database.managerCreateScript());
 
+      statement.addBatch(database.faultCreateScript());
+
+      statement.addBatch(database.leaseCreateScript());
+
+      statement.addBatch(database.managerIndexScript());
+
       statement.addBatch(database.lotIdentCreateScript(UNIQUE_TABLES));
 
       statement.addBatch(database.lotMedCodCreateScript(UNIQUE_TABLES));
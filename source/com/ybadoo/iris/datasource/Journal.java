@@ -0,0 +1,552 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.datasource;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.ybadoo.iris.entity.Ident;
+import com.ybadoo.iris.entity.MedCod;
+import com.ybadoo.iris.entity.UCCode;
+import com.ybadoo.iris.exception.BackendException;
+
+/**
+ * Append-only local store of the certificates of the lots of multiple certificates, one file for the certificates submitted and one
+ * for the certificates coded, each a sequence of chunks synced to the disk before the append returns
+ */
+class Journal implements Serializable
+{
+  /**
+   * Extension of the file of the certificates submitted
+   */
+  static final String LOT = ".lot";
+
+  /**
+   * Extension of the file of the certificates coded
+   */
+  static final String RESULT = ".result";
+
+  /**
+   * Version number of serializable class
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Directory of the files
+   */
+  private final File directory;
+
+  /**
+   * Constructor
+   *
+   * @param directory the directory of the files
+   */
+  Journal(final File directory)
+  {
+    this.directory = directory;
+  }
+
+  /**
+   * Append a chunk of certificates to the file of the lot, synced to the disk
+   *
+   * @param uid the identifier of the lot
+   * @param extension the extension of the file, LOT or RESULT
+   * @param certificates the chunk of certificates
+   * @throws BackendException if an I/O error occurs
+   */
+  void append(final String uid, final String extension, final List<Ident> certificates) throws BackendException
+  {
+    final var chunk = new ByteArrayOutputStream();
+
+    try (final var output = new DataOutputStream(chunk))
+    {
+      output.writeInt(certificates.size());
+
+      for (Ident ident : certificates)
+      {
+        write(output, ident);
+      }
+    }
+    catch (final IOException exception)
+    {
+      throw new BackendException(exception);
+    }
+
+    try (final var channel = FileChannel.open(new File(directory, uid + extension).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE))
+    {
+      // The chunk is prefixed by its length, so a chunk torn by a crash is detected and ignored on reading, and cut before the next
+      // chunk is appended, which would be read out of alignment after it
+
+      final var end = complete(channel);
+
+      channel.truncate(end);
+
+      final var buffer = ByteBuffer.allocate(Integer.BYTES + chunk.size());
+
+      buffer.putInt(chunk.size());
+
+      buffer.put(chunk.toByteArray());
+
+      buffer.flip();
+
+      var position = end;
+
+      while (buffer.hasRemaining())
+      {
+        position = position + channel.write(buffer, position);
+      }
+
+      channel.force(true);
+    }
+    catch (final IOException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Delete the files of all the lots, left by a former run of the service whose lots are gone from the manager table
+   *
+   * @throws BackendException if an I/O error occurs
+   */
+  void clear() throws BackendException
+  {
+    final var files = directory.listFiles((dir, name) -> name.endsWith(LOT) || name.endsWith(RESULT));
+
+    if (files == null)
+    {
+      throw new BackendException("Directory of the journal can not be listed");
+    }
+
+    try
+    {
+      for (File file : files)
+      {
+        Files.deleteIfExists(file.toPath());
+      }
+    }
+    catch (final IOException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Get the length of the chunks entirely written at the start of the file, skipping chunk by chunk by their lengths
+   *
+   * @param channel the file
+   * @return the length of the chunks entirely written
+   * @throws IOException if an I/O error occurs
+   */
+  private static long complete(final FileChannel channel) throws IOException
+  {
+    final var size = channel.size();
+
+    final var header = ByteBuffer.allocate(Integer.BYTES);
+
+    var position = 0L;
+
+    while (position + Integer.BYTES <= size)
+    {
+      header.clear();
+
+      while (header.hasRemaining() && channel.read(header, position + header.position()) > 0)
+      {
+        // The header is read until complete, as a read may return fewer bytes
+      }
+
+      final var length = header.getInt(0);
+
+      if (length < 0 || position + Integer.BYTES + length > size)
+      {
+        break;
+      }
+
+      position = position + Integer.BYTES + length;
+    }
+
+    return position;
+  }
+
+  /**
+   * Tests whether the certificates of the lot are in the journal
+   *
+   * @param uid the identifier of the lot
+   * @return true if the certificates of the lot are in the journal, false otherwise
+   */
+  boolean contains(final String uid)
+  {
+    return new File(directory, uid + LOT).exists();
+  }
+
+  /**
+   * Delete the files of the lot
+   *
+   * @param uid the identifier of the lot
+   * @throws BackendException if an I/O error occurs
+   */
+  void delete(final String uid) throws BackendException
+  {
+    try
+    {
+      Files.deleteIfExists(new File(directory, uid + RESULT).toPath());
+
+      Files.deleteIfExists(new File(directory, uid + LOT).toPath());
+    }
+    catch (final IOException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Read the certificates of the file of the lot, chunk by chunk, up to the last chunk entirely written
+   *
+   * @param uid the identifier of the lot
+   * @param extension the extension of the file, LOT or RESULT
+   * @param dateTimeFormatter the formatter for printing and parsing date-time objects
+   * @return the list of certificates, empty if there is no file
+   * @throws BackendException if an I/O error occurs
+   */
+  List<Ident> read(final String uid, final String extension, final DateTimeFormatter dateTimeFormatter) throws BackendException
+  {
+    final List<Ident> certificates = new LinkedList<>();
+
+    final var file = new File(directory, uid + extension);
+
+    if (!file.exists())
+    {
+      return certificates;
+    }
+
+    try (final var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+         final var input = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+    {
+      // Only the chunks entirely written are read, so the length of a torn chunk is never taken for the size of a chunk
+
+      var remaining = complete(channel);
+
+      while (remaining > 0)
+      {
+        final var chunk = new byte[input.readInt()];
+
+        input.readFully(chunk);
+
+        remaining = remaining - Integer.BYTES - chunk.length;
+
+        try (final var data = new DataInputStream(new ByteArrayInputStream(chunk)))
+        {
+          for (var count = data.readInt(); count > 0; count--)
+          {
+            certificates.add(readIdent(data, dateTimeFormatter));
+          }
+        }
+      }
+    }
+    catch (final IOException exception)
+    {
+      throw new BackendException(exception);
+    }
+
+    return certificates;
+  }
+
+  /**
+   * Delete the file of the certificates coded of the lot, so a lot staged again does not append to the results of a former run
+   *
+   * @param uid the identifier of the lot
+   * @throws BackendException if an I/O error occurs
+   */
+  void reset(final String uid) throws BackendException
+  {
+    try
+    {
+      Files.deleteIfExists(new File(directory, uid + RESULT).toPath());
+    }
+    catch (final IOException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
+
+  /**
+   * Read a certificate with its lines
+   *
+   * @param input the chunk
+   * @param dateTimeFormatter the formatter for printing and parsing date-time objects
+   * @return the certificate
+   * @throws IOException if an I/O error occurs
+   */
+  private static Ident readIdent(final DataInputStream input, final DateTimeFormatter dateTimeFormatter) throws IOException
+  {
+    final var ident = new Ident(dateTimeFormatter);
+
+    ident.setCertificateKey(readString(input));
+
+    ident.setLastChange(readString(input));
+
+    ident.setDateBirth(readString(input));
+
+    ident.setDateDeath(readString(input));
+
+    ident.setAge(readString(input));
+
+    ident.setSex(readString(input));
+
+    ident.setMannerOfDeath(readString(input));
+
+    ident.setUcCode(new UCCode(readString(input)));
+
+    ident.setMainInjury(readString(input));
+
+    ident.setStatus(readString(input));
+
+    ident.setReject(readString(input));
+
+    ident.setCoding(readString(input));
+
+    ident.setCodingVersion(readString(input));
+
+    ident.setCodingFlags(readString(input));
+
+    ident.setSelectedCodes(readString(input));
+
+    ident.setSubstitutedCodes(readString(input));
+
+    ident.setErnCodes(readString(input));
+
+    ident.setAcmeCodes(readString(input));
+
+    ident.setMultipleCodes(readString(input));
+
+    ident.setToDoList(readString(input));
+
+    ident.setAutopsyRequested(readString(input));
+
+    ident.setAutopsyUsed(readString(input));
+
+    ident.setRecentSurgery(readString(input));
+
+    ident.setDateOfSurgery(readString(input));
+
+    ident.setDateOfInjury(readString(input));
+
+    ident.setPlaceOfOccurrence(readString(input));
+
+    ident.setActivityCode(readString(input));
+
+    ident.setPregnancy(readString(input));
+
+    ident.setPregnancyContributeDeath(readString(input));
+
+    ident.setStillbirth(readString(input));
+
+    ident.setMultiplePregnancy(readString(input));
+
+    ident.setCompletedWeeks(readString(input));
+
+    ident.setBirthWeight(readString(input));
+
+    ident.setAgeOfMother(readString(input));
+
+    final List<MedCod> medCods = new LinkedList<>();
+
+    for (var count = input.readInt(); count > 0; count--)
+    {
+      final var medCod = new MedCod();
+
+      medCod.setCertificateKey(readString(input));
+
+      medCod.setLineNb(readString(input));
+
+      medCod.setTextLine(readString(input));
+
+      medCod.setCodeLine(readString(input));
+
+      medCod.setIntervalLine(readString(input));
+
+      medCod.setCodeOnly(readString(input));
+
+      medCod.setLineCoded(readString(input));
+
+      medCods.add(medCod);
+    }
+
+    ident.setMedCods(medCods);
+
+    return ident;
+  }
+
+  /**
+   * Read a string that may be null
+   *
+   * @param input the chunk
+   * @return the string, or null
+   * @throws IOException if an I/O error occurs
+   */
+  private static String readString(final DataInputStream input) throws IOException
+  {
+    if (!input.readBoolean())
+    {
+      return null;
+    }
+
+    final var bytes = new byte[input.readInt()];
+
+    input.readFully(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Write a certificate with its lines
+   *
+   * @param output the chunk
+   * @param ident the certificate
+   * @throws IOException if an I/O error occurs
+   */
+  private static void write(final DataOutputStream output, final Ident ident) throws IOException
+  {
+    write(output, ident.getCertificateKey());
+
+    write(output, ident.getLastChange());
+
+    write(output, ident.getDateBirth());
+
+    write(output, ident.getDateDeath());
+
+    write(output, ident.getAge());
+
+    write(output, ident.getSex());
+
+    write(output, ident.getMannerOfDeath());
+
+    write(output, ident.getUcCode() != null ? ident.getUcCode().getCode() : null);
+
+    write(output, ident.getMainInjury());
+
+    write(output, ident.getStatus());
+
+    write(output, ident.getReject());
+
+    write(output, ident.getCoding());
+
+    write(output, ident.getCodingVersion());
+
+    write(output, ident.getCodingFlags());
+
+    write(output, ident.getSelectedCodes());
+
+    write(output, ident.getSubstitutedCodes());
+
+    write(output, ident.getErnCodes());
+
+    write(output, ident.getAcmeCodes());
+
+    write(output, ident.getMultipleCodes());
+
+    write(output, ident.getToDoList());
+
+    write(output, ident.getAutopsyRequested());
+
+    write(output, ident.getAutopsyUsed());
+
+    write(output, ident.getRecentSurgery());
+
+    write(output, ident.getDateOfSurgery());
+
+    write(output, ident.getDateOfInjury());
+
+    write(output, ident.getPlaceOfOccurrence());
+
+    write(output, ident.getActivityCode());
+
+    write(output, ident.getPregnancy());
+
+    write(output, ident.getPregnancyContributeDeath());
+
+    write(output, ident.getStillbirth());
+
+    write(output, ident.getMultiplePregnancy());
+
+    write(output, ident.getCompletedWeeks());
+
+    write(output, ident.getBirthWeight());
+
+    write(output, ident.getAgeOfMother());
+
+    final List<MedCod> medCods = ident.getMedCods() != null ? ident.getMedCods() : List.of();
+
+    output.writeInt(medCods.size());
+
+    for (MedCod medCod : medCods)
+    {
+      write(output, medCod.getCertificateKey());
+
+      write(output, medCod.getLineNb());
+
+      write(output, medCod.getTextLine());
+
+      write(output, medCod.getCodeLine());
+
+      write(output, medCod.getIntervalLine());
+
+      write(output, medCod.getCodeOnly());
+
+      write(output, medCod.getLineCoded());
+    }
+  }
+
+  /**
+   * Write a string that may be null
+   *
+   * @param output the chunk
+   * @param value the string, or null
+   * @throws IOException if an I/O error occurs
+   */
+  private static void write(final DataOutputStream output, final String value) throws IOException
+  {
+    output.writeBoolean(value != null);
+
+    // The length is written in full, as writeUTF fails on the strings longer than 64 KiB, as the toDoList of a long certificate
+
+    if (value != null)
+    {
+      final var bytes = value.getBytes(StandardCharsets.UTF_8);
+
+      output.writeInt(bytes.length);
+
+      output.write(bytes);
+    }
+  }
+}
@@ -19,14 +19,26 @@ package com.ybadoo.iris.engine;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.healthmarketscience.jackcess.Column;
+import com.healthmarketscience.jackcess.Cursor;
+import com.healthmarketscience.jackcess.CursorBuilder;
 import com.healthmarketscience.jackcess.DatabaseBuilder;
-import com.healthmarketscience.jackcess.Row;
+import com.healthmarketscience.jackcess.DateTimeType;
+import com.healthmarketscience.jackcess.Index;
+import com.healthmarketscience.jackcess.IndexCursor;
+import com.healthmarketscience.jackcess.Table;
+import com.ybadoo.iris.constant.LotType;
+import com.ybadoo.iris.constant.ProcessingStatus;
 import com.ybadoo.iris.datasource.HostDatasource;
 import com.ybadoo.iris.entity.Ident;
 import com.ybadoo.iris.entity.Manager;
@@ -44,6 +56,36 @@ public class AccessEngine extends Engine
    */
   private static final long serialVersionUID = 1L;
 
+  /**
+   * Number of rows written to the MDB file at once
+   */
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * Columns of the Ident table read from the MDB file
+   */
+  private static final String[] IDENT_COLUMNS =
+  {
+    "CertificateKey", "LastChange", "DateBirth", "DateDeath", "Age", "Sex", "MannerOfDeath", "UCCode", "mainInjury", "Status",
+    "Reject", "Coding", "CodingVersion", "CodingFlags", "SelectedCodes", "SubstitutedCodes", "ErnCodes", "AcmeCodes",
+    "MultipleCodes", "ToDoList", "AutopsyRequested", "AutopsyUsed", "RecentSurgery", "DateOfSurgery", "DateOfInjury",
+    "PlaceOfOccurrence", "ActivityCode", "Pregnancy", "PregnancyContributeDeath", "Stillbirth", "MultiplePregnancy",
+    "CompletedWeeks", "BirthWeight", "AgeOfMother"
+  };
+
+  /**
+   * Columns of the MedCod table read from the MDB file
+   */
+  private static final String[] MEDCOD_COLUMNS =
+  {
+    "CertificateKey", "LineNb", "TextLine", "CodeLine", "IntervalLine", "CodeOnly", "LineCoded"
+  };
+
+  /**
+   * Path of the MDB file from the root of the drive C of its Wine prefix, or null if the MDB file is not in a Wine prefix
+   */
+  private String driveMDB;
+
   /**
    * Arquivo MDB
    */
@@ -54,6 +96,16 @@ public class AccessEngine extends Engine
    */
   private String lotName;
 
+  /**
+   * Directory of the working MDB files, usually on tmpfs, or null to work on the MDB files read by the Iris.exe
+   */
+  private File stagingMDB;
+
+  /**
+   * Pristine copy of the MDB file, with the tables of the lot empty, restored before each lot
+   */
+  private File templateMDB;
+
   /**
    * @param datasource
    */
@@ -63,259 +115,374 @@ public class AccessEngine extends Engine
   }
 
   /**
-   * @param certificates
-   * @param certificateKey
-   * @return
+   * Write the rows to the table of the MDB file at once, emptying the list of rows
+   *
+   * @param table the table of the MDB file
+   * @param rows the rows to be written
+   * @throws IOException if an I/O error occurs
+   */
+  private static void addRows(final Table table, final List<Object[]> rows) throws IOException
+  {
+    if (!rows.isEmpty())
+    {
+      table.addRows(rows);
+
+      rows.clear();
+    }
+  }
+
+  /**
+   * Resolve the columns of the table of the MDB file
+   *
+   * @param table the table of the MDB file
+   * @param names the names of the columns
+   * @return the columns, in the order of the names
+   * @throws IOException if a column is not found
    */
-  private Ident getIdent(final List<Ident> certificates, final String certificateKey)
+  private static Column[] columns(final Table table, final String[] names) throws IOException
   {
-    for (Ident ident : certificates)
+    final var columns = new Column[names.length];
+
+    for (var index = 0; index < names.length; index++)
     {
-      if (ident.getCertificateKey().equals(certificateKey))
+      columns[index] = table.getColumn(names[index]);
+
+      if (columns[index] == null)
       {
-        return ident;
+        throw new IOException("Column '" + names[index] + "' not found in table '" + table.getName() + "'");
       }
     }
 
-    return null;
+    return columns;
   }
 
-  /* (non-Javadoc)
-   * @see com.ybadoo.iris.engine.Engine#posSynchronized(com.ybadoo.iris.entity.Manager)
+  /**
+   * Open a cursor over the table of the MDB file, in the order of the certificate keys
+   *
+   * @param table the table of the MDB file
+   * @return the cursor over the table
+   * @throws BackendException if the table has no index on the certificate keys
+   * @throws IOException if an I/O error occurs
    */
-  @Override
-  protected void posSynchronized(final Manager manager) throws BackendException
+  private static IndexCursor cursor(final Table table) throws BackendException, IOException
   {
-    final List<Ident> certificates = new ArrayList<>();
-
-    try (final var database = DatabaseBuilder.open(fileMDB))
+    for (Index index : table.getIndexes())
     {
-      final var tableIdent = database.getTable(lotName + "Ident");
+      if (!index.getColumns().isEmpty() && "CertificateKey".equalsIgnoreCase(index.getColumns().get(0).getName()))
+      {
+        return CursorBuilder.createCursor(index);
+      }
+    }
 
-      final var tableMedCod = database.getTable(lotName + "MedCod");
+    // The rows as stored may be reordered by the Iris.exe, so the tables are never merged without an index
 
-      for (var count = 0; count < tableIdent.getRowCount(); count++)
-      {
-        final var ident = new Ident(datasource.getDateTimeFormatter());
+    throw new BackendException("Table '" + table.getName() + "' has no index on CertificateKey in MDB file.");
+  }
 
-        final var row = tableIdent.getNextRow();
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.Engine#isBisectable()
+   */
+  @Override
+  protected boolean isBisectable()
+  {
+    // The certificates of the lot are moved from the host database to the MDB file, so the lot can not be split in the host database
 
-        ident.setCertificateKey(row.getString("CertificateKey"));
+    return false;
+  }
 
-        ident.setLastChange(row.getLocalDateTime("LastChange"));
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.Engine#isHedgeable()
+   */
+  @Override
+  protected boolean isHedgeable()
+  {
+    // The Iris.exe codes the lot in the MDB file, so a duplicate run can not code a copy of the lot apart
 
-        ident.setDateBirth(row.getLocalDateTime("DateBirth"));
+    return false;
+  }
 
-        ident.setDateDeath(row.getLocalDateTime("DateDeath"));
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.Engine#isPipelined()
+   */
+  @Override
+  protected boolean isPipelined()
+  {
+    // The MDB file of a worker holds a single lot from the pre-processing to the post-processing, so the worker runs all the stages
 
-        ident.setAge(row.getString("Age"));
+    return false;
+  }
 
-        ident.setSex(row.getString("Sex"));
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.Engine#posSynchronized(com.ybadoo.iris.entity.Manager)
+   */
+  @Override
+  protected void posSynchronized(final Manager manager) throws BackendException
+  {
+    restore(manager);
 
-        ident.setMannerOfDeath(row.getByte("MannerOfDeath").toString());
+    if (manager.getLotType() == LotType.MULTIPLE)
+    {
+      datasource.managerStatusUpdate(manager.getUid(), manager.getOwner(), ProcessingStatus.FINISHED);
+    }
+  }
 
-        ident.setUcCode(new UCCode(row.getString("UCCode")));
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.Engine#preSynchronized(com.ybadoo.iris.entity.Manager)
+   */
+  @Override
+  protected String preSynchronized(final Manager manager) throws BackendException
+  {
+    final var slot = slot();
 
-        ident.setMainInjury(row.getString("mainInjury"));
+    final var working = working(slot);
 
-        ident.setStatus(row.getString("Status"));
+    reset(slot, working);
 
-        ident.setReject(row.getString("Reject"));
+    // Without autosync the pages are written once, when the database is closed, before the Iris.exe starts
 
-        ident.setCoding(row.getString("Coding"));
+    try (final var database = new DatabaseBuilder(working).setAutoSync(false).open())
+    {
+      final var tableIdent = database.getTable(lotName + "Ident");
 
-        ident.setCodingVersion(row.getString("CodingVersion"));
+      final var tableMedCod = database.getTable(lotName + "MedCod");
 
-        ident.setCodingFlags(row.getString("CodingFlags"));
+      final var certificates = datasource.certificatesToAccess(manager);
 
-        ident.setSelectedCodes(row.getString("SelectedCodes"));
+      manager.setStaged(true);
 
-        ident.setSubstitutedCodes(row.getString("SubstitutedCodes"));
+      manager.setCertificates(certificates.size());
 
-        ident.setErnCodes(row.getString("ErnCodes"));
+      final List<Object[]> rowsIdent = new ArrayList<>(Math.min(certificates.size(), BATCH_SIZE));
 
-        ident.setAcmeCodes(row.getString("AcmeCodes"));
+      final List<Object[]> rowsMedCod = new ArrayList<>(BATCH_SIZE);
 
-        ident.setMultipleCodes(row.getString("MultipleCodes"));
+      for (Ident ident : certificates)
+      {
+        rowsIdent.add(new Object[] {ident.getCertificateKey(),
+                                    null, // ident.getLastChange()
+                                    ident.getDateBirthAsLocalDateTime(),
+                                    ident.getDateDeathAsLocalDateTime(),
+                                    ident.getAge(),
+                                    ident.getSex(),
+                                    ident.getMannerOfDeath() != null ? Byte.parseByte(ident.getMannerOfDeath()) : null,
+                                    null, // ident.getUCCode().getCode()
+                                    null, // ident.getMainInjury()
+                                    ident.getStatus(),
+                                    ident.getReject(),
+                                    ident.getCoding(),
+                                    null, // ident.getCodingVersion()
+                                    ident.getCodingFlags(),
+                                    null, // ident.getSelectedCodes()
+                                    null, // ident.getSubstitutedCodes()
+                                    null, // ident.getErnCodes()
+                                    null, // ident.getAcmeCodes()
+                                    null, // ident.getMultipleCodes()
+                                    null, // ident.getComments()
+                                    null, // ident.getFreeText()
+                                    null, // ident.getToDoList()
+                                    null, // ident.getCoderReject()
+                                    null, // ident.getDiagnosisModified()
+                                    null, // ident.getResidence()
+                                    null, // ident.getName()
+                                    null, // ident.getAddress()
+                                    ident.getAutopsyRequested(),
+                                    ident.getAutopsyUsed(),
+                                    ident.getRecentSurgery(),
+                                    ident.getDateOfSurgeryAsLocalDateTime(),
+                                    null, // ident.getReasonSurgery()
+                                    ident.getDateOfInjuryAsLocalDateTime(),
+                                    ident.getPlaceOfOccurrence(),
+                                    ident.getActivityCode(),
+                                    null, // ident.getExternalFreeText()
+                                    ident.getPregnancy(),
+                                    ident.getStillbirth(),
+                                    ident.getMultiplePregnancy(),
+                                    ident.getCompletedWeeks(),
+                                    ident.getBirthWeight(),
+                                    ident.getAgeOfMother(),
+                                    null, // ident.getConditionMother()
+                                    null, // ident.getCertImage()
+                                    ident.getPregnancyContributeDeath()});
+
+        for (MedCod medCod : ident.getMedCods())
+        {
+          rowsMedCod.add(new Object[] {medCod.getCertificateKey(),
+                                       medCod.getLineNb() != null ? Short.parseShort(medCod.getLineNb()) : null,
+                                       medCod.getTextLine(),
+                                       medCod.getCodeLine(),
+                                       medCod.getIntervalLine(),
+                                       medCod.getCodeOnly(),
+                                       medCod.getLineCoded()});
+        }
 
-        ident.setToDoList(row.getString("ToDoList"));
+        if (rowsIdent.size() >= BATCH_SIZE)
+        {
+          addRows(tableIdent, rowsIdent);
+        }
 
-        ident.setAutopsyRequested(row.getString("AutopsyRequested"));
+        if (rowsMedCod.size() >= BATCH_SIZE)
+        {
+          addRows(tableMedCod, rowsMedCod);
+        }
+      }
 
-        ident.setAutopsyUsed(row.getString("AutopsyUsed"));
+      addRows(tableIdent, rowsIdent);
 
-        ident.setRecentSurgery(row.getString("RecentSurgery"));
+      addRows(tableMedCod, rowsMedCod);
+    }
+    catch (final Exception exception)
+    {
+      throw new BackendException(exception);
+    }
 
-        ident.setDateOfSurgery(row.getLocalDateTime("DateOfSurgery"));
+    return lotName;
+  }
 
-        ident.setDateOfInjury(row.getLocalDateTime("DateOfInjury"));
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.Engine#quarantineSynchronized(com.ybadoo.iris.entity.Manager)
+   */
+  @Override
+  protected void quarantineSynchronized(final Manager manager) throws BackendException
+  {
+    // The certificates moved from the host database to the MDB file are moved back before the quarantine, but the lot is quarantined
+    // even if the MDB file can not be read, so the user is never left waiting on a lot running forever
 
-        ident.setPlaceOfOccurrence(row.getString("PlaceOfOccurrence"));
+    try
+    {
+      if (manager.isStaged())
+      {
+        restore(manager);
+      }
+    }
+    finally
+    {
+      if (manager.getLotType() == LotType.UNIQUE)
+      {
+        datasource.managerClaimStatusUpdate(manager.getClaimant(), ProcessingStatus.QUARANTINED);
+      }
+      else
+      {
+        datasource.managerStatusUpdate(manager.getUid(), manager.getOwner(), ProcessingStatus.QUARANTINED);
+      }
+    }
+  }
+
+  /**
+   * Restore the pristine copy of the MDB file, emptying the tables of the lot in constant time, as the MDB file never reclaims the
+   * space of the rows deleted
+   *
+   * @param slot the MDB file of the worker
+   * @param working the working MDB file of the worker
+   * @throws BackendException if the MDB file can not be restored
+   */
+  private void reset(final File slot, final File working) throws BackendException
+  {
+    try
+    {
+      Files.createDirectories(working.getParentFile().toPath());
 
-        ident.setActivityCode(row.getString("ActivityCode"));
+      // Files.copy hands the copy to the operating system, which clones the file on the filesystems supporting it
 
-        ident.setPregnancy(row.getString("Pregnancy"));
+      Files.copy(templateMDB.toPath(), working.toPath(), StandardCopyOption.REPLACE_EXISTING);
 
-        ident.setPregnancyContributeDeath(row.getString("PregnancyContributeDeath"));
+      // The Iris.exe reads the MDB file at the path of its settings, so it is linked to the working MDB file, recreated after a reboot
 
-        ident.setStillbirth(row.getString("Stillbirth"));
+      if (!working.equals(slot) && !(Files.isSymbolicLink(slot.toPath()) && Files.readSymbolicLink(slot.toPath()).equals(working.toPath())))
+      {
+        Files.createDirectories(slot.getParentFile().toPath());
 
-        ident.setMultiplePregnancy(row.getString("MultiplePregnancy"));
+        Files.deleteIfExists(slot.toPath());
 
-        ident.setCompletedWeeks(row.getString("CompletedWeeks"));
+        Files.createSymbolicLink(slot.toPath(), working.toPath());
+      }
+    }
+    catch (final IOException exception)
+    {
+      throw new BackendException(exception);
+    }
+  }
 
-        ident.setBirthWeight(row.getString("BirthWeight"));
+  /**
+   * Move the certificates of the lot from the MDB file back to the host database, from the start, so a failed move can be made again
+   * without duplicating the certificates moved before the failure
+   *
+   * @param manager the lot's manager
+   * @throws BackendException if the MDB file can not be read, or a database access error occurs
+   */
+  private void restore(final Manager manager) throws BackendException
+  {
+    datasource.discardAccess(manager);
 
-        ident.setAgeOfMother(row.getString("AgeOfMother"));
+    try (final var database = new DatabaseBuilder(working(slot())).setReadOnly(true).open())
+    {
+      // The dates are read as LocalDateTime, as cast by toIdent
 
-        ident.setMedCods(new LinkedList<>());
+      database.setDateTimeType(DateTimeType.LOCAL_DATE_TIME);
 
-        certificates.add(ident);
-      }
+      final var tableIdent = database.getTable(lotName + "Ident");
 
-      var index = 0;
+      final var tableMedCod = database.getTable(lotName + "MedCod");
 
-      var ident = certificates.get(index);
+      // The columns are resolved once per lot and read from the cursors one by one, so the other columns are never decoded
 
-      for (var count = 0; count < tableMedCod.getRowCount(); count++)
-      {
-        final var medCod = new MedCod();
+      final var columnsIdent = columns(tableIdent, IDENT_COLUMNS);
 
-        final var row = tableMedCod.getNextRow();
+      final var columnsMedCod = columns(tableMedCod, MEDCOD_COLUMNS);
 
-        medCod.setCertificateKey(row.getString("CertificateKey"));
+      final var cursorIdent = cursor(tableIdent);
 
-        medCod.setLineNb(row.getShort("LineNb").toString());
+      final var cursorMedCod = cursor(tableMedCod);
 
-        medCod.setTextLine(row.getString("TextLine"));
+      final var lookupIdent = cursor(tableIdent);
 
-        medCod.setCodeLine(row.getString("CodeLine"));
+      final List<Ident> certificates = new ArrayList<>(BATCH_SIZE);
 
-        medCod.setIntervalLine(row.getString("IntervalLine"));
+      var pending = cursorMedCod.moveToNextRow();
 
-        medCod.setCodeOnly(row.getString("CodeOnly"));
+      while (cursorIdent.moveToNextRow())
+      {
+        final var ident = toIdent(cursorIdent, columnsIdent);
 
-        medCod.setLineCoded(row.getString("LineCoded"));
+        // A line without certificate would hold back the lines of all the next certificates, so the lot fails instead
 
-        if (ident.getCertificateKey().equals(medCod.getCertificateKey()))
+        if (pending && !ident.getCertificateKey().equals(cursorMedCod.getCurrentRowValue(columnsMedCod[0])) && !lookupIdent.findFirstRowByEntry(cursorMedCod.getCurrentRowValue(columnsMedCod[0])))
         {
-          ident.getMedCods().add(medCod);
+          throw new BackendException("Lines of the certificate '" + cursorMedCod.getCurrentRowValue(columnsMedCod[0]) + "' without certificate in MDB file.");
         }
-        else
-        {
-          index = index + 1;
 
-          ident = certificates.get(index);
+        // Both tables are read in the order of the certificate keys, so the lines of the certificate are the next ones
 
-          if (ident.getCertificateKey().equals(medCod.getCertificateKey()))
-          {
-            ident.getMedCods().add(medCod);
-          }
-          else
-          {
-            ident = getIdent(certificates, medCod.getCertificateKey());
+        while (pending && ident.getCertificateKey().equals(cursorMedCod.getCurrentRowValue(columnsMedCod[0])))
+        {
+          ident.getMedCods().add(toMedCod(cursorMedCod, columnsMedCod));
 
-            ident.getMedCods().add(medCod);
-          }
+          pending = cursorMedCod.moveToNextRow();
         }
-      }
-    }
-    catch (final Exception exception)
-    {
-      throw new BackendException(exception);
-    }
 
-    datasource.accessToCertificates(manager, certificates);
-  }
+        certificates.add(ident);
 
-  /* (non-Javadoc)
-   * @see com.ybadoo.iris.engine.Engine#preSynchronized(com.ybadoo.iris.entity.Manager)
-   */
-  @Override
-  protected String preSynchronized(final Manager manager) throws BackendException
-  {
-    try (final var database = DatabaseBuilder.open(fileMDB))
-    {
-      final var tableIdent = database.getTable(lotName + "Ident");
+        if (certificates.size() >= BATCH_SIZE)
+        {
+          datasource.accessToCertificates(manager, certificates);
 
-      for (Row row : tableIdent)
-      {
-        tableIdent.deleteRow(row);
+          certificates.clear();
+        }
       }
 
-      final var tableMedCod = database.getTable(lotName + "MedCod");
-
-      for (Row row : tableMedCod)
+      if (pending)
       {
-        tableMedCod.deleteRow(row);
+        throw new BackendException("Lines of the certificate '" + cursorMedCod.getCurrentRowValue(columnsMedCod[0]) + "' not read from MDB file.");
       }
 
-      for (Ident ident : datasource.certificatesToAccess(manager))
+      if (!certificates.isEmpty())
       {
-        tableIdent.addRow(ident.getCertificateKey(),
-                          null, // ident.getLastChange()
-                          ident.getDateBirthAsLocalDateTime(),
-                          ident.getDateDeathAsLocalDateTime(),
-                          ident.getAge(),
-                          ident.getSex(),
-                          ident.getMannerOfDeath() != null ? Byte.parseByte(ident.getMannerOfDeath()) : null,
-                          null, // ident.getUCCode().getCode()
-                          null, // ident.getMainInjury()
-                          ident.getStatus(),
-                          ident.getReject(),
-                          ident.getCoding(),
-                          null, // ident.getCodingVersion()
-                          ident.getCodingFlags(),
-                          null, // ident.getSelectedCodes()
-                          null, // ident.getSubstitutedCodes()
-                          null, // ident.getErnCodes()
-                          null, // ident.getAcmeCodes()
-                          null, // ident.getMultipleCodes()
-                          null, // ident.getComments()
-                          null, // ident.getFreeText()
-                          null, // ident.getToDoList()
-                          null, // ident.getCoderReject()
-                          null, // ident.getDiagnosisModified()
-                          null, // ident.getResidence()
-                          null, // ident.getName()
-                          null, // ident.getAddress()
-                          ident.getAutopsyRequested(),
-                          ident.getAutopsyUsed(),
-                          ident.getRecentSurgery(),
-                          ident.getDateOfSurgeryAsLocalDateTime(),
-                          null, // ident.getReasonSurgery()
-                          ident.getDateOfInjuryAsLocalDateTime(),
-                          ident.getPlaceOfOccurrence(),
-                          ident.getActivityCode(),
-                          null, // ident.getExternalFreeText()
-                          ident.getPregnancy(),
-                          ident.getStillbirth(),
-                          ident.getMultiplePregnancy(),
-                          ident.getCompletedWeeks(),
-                          ident.getBirthWeight(),
-                          ident.getAgeOfMother(),
-                          null, // ident.getConditionMother()
-                          null, // ident.getCertImage()
-                          ident.getPregnancyContributeDeath());
-
-          for (MedCod medCod : ident.getMedCods())
-          {
-            tableMedCod.addRow(medCod.getCertificateKey(),
-                               medCod.getLineNb() != null ? Short.parseShort(medCod.getLineNb()) : null,
-                               medCod.getTextLine(),
-                               medCod.getCodeLine(),
-                               medCod.getIntervalLine(),
-                               medCod.getCodeOnly(),
-                               medCod.getLineCoded());
-        }
+        datasource.accessToCertificates(manager, certificates);
       }
     }
-    catch (final Exception exception)
+    catch (final IOException | RuntimeException exception)
     {
       throw new BackendException(exception);
     }
-
-    return lotName;
   }
 
   /**
@@ -346,6 +513,20 @@ public class AccessEngine extends Engine
     }
 
     this.fileMDB = mdb;
+
+    final var path = mdb.getAbsoluteFile().toPath();
+
+    driveMDB = null;
+
+    for (var index = path.getNameCount() - 2; index >= 0; index--)
+    {
+      if ("drive_c".equals(path.getName(index).toString()))
+      {
+        driveMDB = path.subpath(index, path.getNameCount()).toString();
+
+        break;
+      }
+    }
   }
 
 
@@ -376,4 +557,265 @@ public class AccessEngine extends Engine
 
     this.lotName = lotName;
   }
+
+  /**
+   * Set the directory of the working MDB files, usually on tmpfs, so the MDB file written by Jackcess, coded by the Iris.exe and
+   * read back by Jackcess never touches the disk
+   *
+   * @param stagingMDB the directory of the working MDB files, or blank to work on the MDB files read by the Iris.exe
+   * @throws BackendException if the directory is invalid
+   */
+  public void setStagingMDB(final String stagingMDB) throws BackendException
+  {
+    if (StringUtils.isBlank(stagingMDB))
+    {
+      this.stagingMDB = null;
+
+      return;
+    }
+
+    final var directory = new File(stagingMDB);
+
+    try
+    {
+      if (!directory.isDirectory())
+      {
+        throw new BackendException("Key 'host.OLEDB.staging' is invalid. Directory not found.");
+      }
+
+      if (!directory.canWrite())
+      {
+        throw new BackendException("Key 'host.OLEDB.staging' is invalid. Directory without permission of writing.");
+      }
+    }
+    catch (final SecurityException exception)
+    {
+      throw new BackendException("Key 'host.OLEDB.staging' is invalid.", exception);
+    }
+
+    this.stagingMDB = directory;
+  }
+
+  /**
+   * Set the pristine copy of the MDB file, restored before each lot; the copy must be taken from a clean or compacted MDB file, as
+   * deleting the rows of a grown MDB file does not give its space back
+   *
+   * @param templateMDB the pristine copy of the MDB file
+   * @throws BackendException if the copy is not informed or is invalid
+   */
+  public void setTemplateMDB(final String templateMDB) throws BackendException
+  {
+    if (StringUtils.isBlank(templateMDB))
+    {
+      throw new BackendException("Key 'host.OLEDB.template' is invalid. A clean or compacted copy of the MDB file is required.");
+    }
+
+    final var template = new File(templateMDB);
+
+    try (final var database = DatabaseBuilder.open(template))
+    {
+      final var ident = database.getTable(lotName + "Ident");
+
+      final var medCod = database.getTable(lotName + "MedCod");
+
+      if (ident == null || medCod == null)
+      {
+        throw new BackendException("Key 'host.OLEDB.template' is invalid. Tables of the lot '" + lotName + "' not found in MDB file.");
+      }
+
+      if (ident.getRowCount() > 0 || medCod.getRowCount() > 0)
+      {
+        throw new BackendException("Key 'host.OLEDB.template' is invalid. Tables of the lot '" + lotName + "' are not empty in MDB file.");
+      }
+    }
+    catch (final IOException exception)
+    {
+      throw new BackendException("Key 'host.OLEDB.template' is invalid.", exception);
+    }
+
+    this.templateMDB = template;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.Engine#setWorkspace(java.lang.String)
+   */
+  @Override
+  public void setWorkspace(final String workspace) throws BackendException
+  {
+    super.setWorkspace(workspace);
+
+    // The worker of the fast lane runs its lots in its own MDB file as well, alongside the other workers
+
+    if (getWorkers() + (isFastLane() ? 1 : 0) > 1 && (StringUtils.isBlank(workspace) || !isWine() || driveMDB == null))
+    {
+      throw new BackendException("Key 'host.iris.workers' is invalid. Several workers, the fast lane included, need host.iris.workspace on wine and the MDB file in the drive C of a Wine prefix.");
+    }
+
+    // The working MDB files are linked from the MDB files of the workers, never from the MDB file configured
+
+    if (stagingMDB != null && (StringUtils.isBlank(workspace) || !isWine() || driveMDB == null))
+    {
+      throw new BackendException("Key 'host.OLEDB.staging' is invalid. The staging needs host.iris.workspace on wine and the MDB file in the drive C of a Wine prefix.");
+    }
+  }
+
+  /**
+   * Get the MDB file of the current worker: the Iris.exe of each Wine prefix reads the MDB file at the same path of its own drive C,
+   * so each worker stages its lots in its own copy of the MDB file, apart from the file locks of the other workers
+   *
+   * @return the MDB file of the current worker, or the MDB file configured if the worker has no Wine prefix of its own
+   */
+  private File slot()
+  {
+    final var thread = Thread.currentThread();
+
+    if (driveMDB != null && thread instanceof WorkerEngine)
+    {
+      final var prefix = ((WorkerEngine) thread).getEnvironment().get("WINEPREFIX");
+
+      if (prefix != null)
+      {
+        return Paths.get(prefix, driveMDB).toFile();
+      }
+    }
+
+    return fileMDB;
+  }
+
+  /**
+   * Read the certificate of the current row of the Ident table, decoding only the columns read
+   *
+   * @param cursor the cursor over the Ident table
+   * @param columns the columns of the Ident table, in the order of IDENT_COLUMNS
+   * @return the certificate, without its lines
+   * @throws IOException if an I/O error occurs
+   */
+  private Ident toIdent(final Cursor cursor, final Column[] columns) throws IOException
+  {
+    var column = 0;
+
+    final var ident = new Ident(datasource.getDateTimeFormatter());
+
+    ident.setCertificateKey((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setLastChange((LocalDateTime) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setDateBirth((LocalDateTime) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setDateDeath((LocalDateTime) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setAge((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setSex((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setMannerOfDeath(cursor.getCurrentRowValue(columns[column++]).toString());
+
+    ident.setUcCode(new UCCode((String) cursor.getCurrentRowValue(columns[column++])));
+
+    ident.setMainInjury((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setStatus((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setReject((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setCoding((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setCodingVersion((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setCodingFlags((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setSelectedCodes((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setSubstitutedCodes((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setErnCodes((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setAcmeCodes((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setMultipleCodes((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setToDoList((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setAutopsyRequested((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setAutopsyUsed((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setRecentSurgery((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setDateOfSurgery((LocalDateTime) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setDateOfInjury((LocalDateTime) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setPlaceOfOccurrence((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setActivityCode((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setPregnancy((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setPregnancyContributeDeath((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setStillbirth((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setMultiplePregnancy((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setCompletedWeeks((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setBirthWeight((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setAgeOfMother((String) cursor.getCurrentRowValue(columns[column++]));
+
+    ident.setMedCods(new LinkedList<>());
+
+    return ident;
+  }
+
+  /**
+   * Read the line of the current row of the MedCod table, decoding only the columns read
+   *
+   * @param cursor the cursor over the MedCod table
+   * @param columns the columns of the MedCod table, in the order of MEDCOD_COLUMNS
+   * @return the line of the certificate
+   * @throws IOException if an I/O error occurs
+   */
+  private static MedCod toMedCod(final Cursor cursor, final Column[] columns) throws IOException
+  {
+    var column = 0;
+
+    final var medCod = new MedCod();
+
+    medCod.setCertificateKey((String) cursor.getCurrentRowValue(columns[column++]));
+
+    medCod.setLineNb(cursor.getCurrentRowValue(columns[column++]).toString());
+
+    medCod.setTextLine((String) cursor.getCurrentRowValue(columns[column++]));
+
+    medCod.setCodeLine((String) cursor.getCurrentRowValue(columns[column++]));
+
+    medCod.setIntervalLine((String) cursor.getCurrentRowValue(columns[column++]));
+
+    medCod.setCodeOnly((String) cursor.getCurrentRowValue(columns[column++]));
+
+    medCod.setLineCoded((String) cursor.getCurrentRowValue(columns[column++]));
+
+    return medCod;
+  }
+
+  /**
+   * Get the working MDB file of the worker, in the staging directory, named after the MDB file of the worker so each worker has its own
+   *
+   * @param slot the MDB file of the worker
+   * @return the working MDB file of the worker, or the MDB file of the worker if there is no staging directory or the worker has no
+   *         MDB file of its own
+   */
+  private File working(final File slot)
+  {
+    // The MDB file configured is never replaced by a link, which would dangle once the staging directory is wiped
+
+    if (stagingMDB == null || slot.equals(fileMDB))
+    {
+      return slot;
+    }
+
+    return new File(stagingMDB, Integer.toHexString(slot.getAbsolutePath().hashCode()) + "-" + slot.getName());
+  }
 }
@@ -0,0 +1,314 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.ybadoo.iris.exception.BackendException;
+
+/**
+ * Micro-batching of the unique certificates: the first worker that receives a unique certificate collects the next ones, waiting
+ * for a window adapted to the arrival rate, so a burst of single-certificate requests is coded by a single Iris.exe run
+ */
+public class BatchEngine implements BatchEngineMXBean, Serializable
+{
+  /**
+   * Weight of the last interval in the average interval between the arrivals
+   */
+  private static final double SMOOTHING = 0.2;
+
+  /**
+   * Version number of serializable class
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Number of batches launched
+   */
+  private long batches;
+
+  /**
+   * Number of certificates in the batches launched
+   */
+  private long certificates;
+
+  /**
+   * Claimant of the batch being collected, or null if there is no batch being collected
+   */
+  private String collector;
+
+  /**
+   * Average interval between the arrivals of unique certificates, in nanoseconds
+   */
+  private double interArrival;
+
+  /**
+   * Instant of the last arrival of an unique certificate, in nanoseconds
+   */
+  private long lastArrival;
+
+  /**
+   * Number of certificates in the last batch
+   */
+  private int lastSize;
+
+  /**
+   * Time waited to fill the last batch, in milliseconds
+   */
+  private long lastWait;
+
+  /**
+   * Maximum number of certificates waited for in a batch
+   */
+  private int maxSize = 1000;
+
+  /**
+   * Maximum time waited to fill a batch, in milliseconds, or zero to launch the Iris.exe immediately
+   */
+  private long maxWait;
+
+  /**
+   * Time waited to fill the batches launched, in milliseconds
+   */
+  private long waited;
+
+  /**
+   * Register the arrival of an unique certificate
+   */
+  synchronized void arrived()
+  {
+    final var now = System.nanoTime();
+
+    if (lastArrival != 0)
+    {
+      // An idle period only means sparse arrivals, so it is capped to keep the average able to follow the next burst
+
+      final var interval = (double) Math.min(now - lastArrival, TimeUnit.MILLISECONDS.toNanos(2 * maxWait));
+
+      interArrival = interArrival == 0 ? interval : (1 - SMOOTHING) * interArrival + SMOOTHING * interval;
+    }
+
+    lastArrival = now;
+  }
+
+  /**
+   * Close the batch being collected
+   *
+   * @param size the number of certificates in the batch
+   * @param wait the time waited to fill the batch, in milliseconds
+   */
+  synchronized void close(final int size, final long wait)
+  {
+    collector = null;
+
+    batches = batches + 1;
+
+    certificates = certificates + size;
+
+    waited = waited + wait;
+
+    lastSize = size;
+
+    lastWait = wait;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.BatchEngineMXBean#getAverageSize()
+   */
+  @Override
+  public synchronized double getAverageSize()
+  {
+    return batches == 0 ? 0 : (double) certificates / batches;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.BatchEngineMXBean#getAverageWait()
+   */
+  @Override
+  public synchronized double getAverageWait()
+  {
+    return batches == 0 ? 0 : (double) waited / batches;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.BatchEngineMXBean#getBatches()
+   */
+  @Override
+  public synchronized long getBatches()
+  {
+    return batches;
+  }
+
+  /**
+   * Get the claimant of the batch being collected
+   *
+   * @return the claimant of the batch being collected, or null if there is no batch being collected
+   */
+  synchronized String getCollector()
+  {
+    return collector;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.BatchEngineMXBean#getInterArrival()
+   */
+  @Override
+  public synchronized double getInterArrival()
+  {
+    return interArrival / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.BatchEngineMXBean#getLastSize()
+   */
+  @Override
+  public synchronized int getLastSize()
+  {
+    return lastSize;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.BatchEngineMXBean#getLastWait()
+   */
+  @Override
+  public synchronized long getLastWait()
+  {
+    return lastWait;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.BatchEngineMXBean#getMaxSize()
+   */
+  @Override
+  public int getMaxSize()
+  {
+    return maxSize;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.BatchEngineMXBean#getMaxWait()
+   */
+  @Override
+  public long getMaxWait()
+  {
+    return maxWait;
+  }
+
+  /**
+   * Tests whether the unique certificates are collected before launching the Iris.exe
+   *
+   * @return true if the unique certificates are collected, false otherwise
+   */
+  boolean isEnabled()
+  {
+    return maxWait > 0;
+  }
+
+  /**
+   * Open a batch collected by the claimant
+   *
+   * @param claimant the claimant of the batch
+   */
+  synchronized void open(final String claimant)
+  {
+    collector = claimant;
+  }
+
+  /**
+   * Set the maximum number of certificates waited for in a batch
+   *
+   * @param maxSize the maximum number of certificates waited for in a batch
+   * @throws BackendException if the maximum number of certificates is invalid
+   */
+  public void setMaxSize(final String maxSize) throws BackendException
+  {
+    if (StringUtils.isBlank(maxSize))
+    {
+      return;
+    }
+
+    try
+    {
+      this.maxSize = Integer.parseInt(maxSize);
+
+      if (this.maxSize < 1)
+      {
+        throw new BackendException("host.iris.batch.size is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.batch.size is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Set the maximum time waited to fill a batch, in milliseconds
+   *
+   * @param maxWait the maximum time waited to fill a batch, in milliseconds
+   * @throws BackendException if the maximum time is invalid
+   */
+  public void setMaxWait(final String maxWait) throws BackendException
+  {
+    if (StringUtils.isBlank(maxWait))
+    {
+      return;
+    }
+
+    try
+    {
+      this.maxWait = Long.parseLong(maxWait);
+
+      if (this.maxWait < 0l)
+      {
+        throw new BackendException("host.iris.batch.wait is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.batch.wait is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Get the time to wait for the batch, adapted to the arrival rate: no wait when the certificates arrive sparser than the
+   * maximum wait, otherwise the expected time to fill the batch, limited to the maximum wait
+   *
+   * @param queued the number of certificates already in the batch
+   * @return the time to wait for the batch, in milliseconds
+   */
+  synchronized long window(final int queued)
+  {
+    if (queued >= maxSize || interArrival == 0)
+    {
+      return 0;
+    }
+
+    final var interval = (long) interArrival / TimeUnit.MILLISECONDS.toNanos(1);
+
+    if (interval >= maxWait)
+    {
+      return 0;
+    }
+
+    return Math.min(maxWait, (maxSize - queued) * Math.max(interval, 1));
+  }
+}
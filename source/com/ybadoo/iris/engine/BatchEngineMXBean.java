@@ -0,0 +1,80 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+/**
+ * Metrics of the micro-batching of the unique certificates, exposed by JMX
+ */
+public interface BatchEngineMXBean
+{
+  /**
+   * Get the average number of certificates in the batches
+   *
+   * @return the average number of certificates in the batches
+   */
+  double getAverageSize();
+
+  /**
+   * Get the average time waited to fill the batches, in milliseconds
+   *
+   * @return the average time waited to fill the batches, in milliseconds
+   */
+  double getAverageWait();
+
+  /**
+   * Get the number of batches launched
+   *
+   * @return the number of batches launched
+   */
+  long getBatches();
+
+  /**
+   * Get the average interval between the arrivals of unique certificates, in milliseconds
+   *
+   * @return the average interval between the arrivals of unique certificates, in milliseconds
+   */
+  double getInterArrival();
+
+  /**
+   * Get the number of certificates in the last batch
+   *
+   * @return the number of certificates in the last batch
+   */
+  int getLastSize();
+
+  /**
+   * Get the time waited to fill the last batch, in milliseconds
+   *
+   * @return the time waited to fill the last batch, in milliseconds
+   */
+  long getLastWait();
+
+  /**
+   * Get the maximum number of certificates waited for in a batch
+   *
+   * @return the maximum number of certificates waited for in a batch
+   */
+  int getMaxSize();
+
+  /**
+   * Get the maximum time waited to fill a batch, in milliseconds
+   *
+   * @return the maximum time waited to fill a batch, in milliseconds
+   */
+  long getMaxWait();
+}
@@ -17,6 +17,11 @@
 
 package com.ybadoo.iris.engine;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
 import com.ybadoo.iris.constant.LotType;
 import com.ybadoo.iris.constant.ProcessingStatus;
 import com.ybadoo.iris.datasource.HostDatasource;
@@ -40,6 +45,17 @@ public class DatabaseEngine extends Engine
    * Version number of serializable class
    */
   private static final long serialVersionUID = 1L;
+
+  /**
+   * Maximum number of small lots packed in a single execution of IRIS
+   */
+  private int coalesceLots = 20;
+
+  /**
+   * Maximum number of certificates of a lot to be packed with other lots, zero disables the packing
+   */
+  private int coalesceSize = 0;
+
   /* (non-Javadoc)
    * @see com.ybadoo.iris.engine.Engine#preSynchronized(com.ybadoo.iris.entity.Manager)
    */
@@ -50,12 +66,43 @@ public class DatabaseEngine extends Engine
     {
       datasource.convertDatabaseToIris(manager);
     }
-    else
+    else if (coalesceSize > 0 && datasource.isPackable(manager, coalesceSize))
     {
-      datasource.managerStatusUpdate(manager.getUid(), manager.getOwner(), ProcessingStatus.RUNNING);
+      final var lots = new ArrayList<Manager>();
+
+      var lot = new Manager();
+
+      lot.setUid(manager.getUid());
+
+      lot.setTables(manager.getTables());
+
+      lot.setOwner(manager.getOwner());
+
+      lots.add(lot);
+
+      try
+      {
+        while (lots.size() < coalesceLots && (lot = datasource.nextPackableLot(coalesceSize)) != null)
+        {
+          lots.add(lot);
+        }
+
+        if (lots.size() > 1)
+        {
+          manager.setLots(lots);
+
+          datasource.packLots(manager);
+        }
+      }
+      catch (final BackendException exception)
+      {
+        unclaim(manager, lots);
+
+        throw exception;
+      }
     }
 
-    return manager.getUid();
+    return manager.getTables();
   }
 
   /* (non-Javadoc)
@@ -66,11 +113,120 @@ public class DatabaseEngine extends Engine
   {
     if (manager.getLotType() == LotType.UNIQUE)
     {
-      datasource.convertIrisToDatabase(manager);
+      datasource.convertIrisToDatabase(manager, ProcessingStatus.FINISHED);
+    }
+    else if (manager.getLots() != null)
+    {
+      datasource.unpackLots(manager, ProcessingStatus.FINISHED);
     }
     else
     {
       datasource.managerStatusUpdate(manager.getUid(), manager.getOwner(), ProcessingStatus.FINISHED);
     }
   }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.Engine#quarantineSynchronized(com.ybadoo.iris.entity.Manager)
+   */
+  @Override
+  protected void quarantineSynchronized(final Manager manager) throws BackendException
+  {
+    // The certificates never moved to the tables of the Iris are still where the claim found them, so only their status is updated
+
+    if (manager.getLotType() == LotType.UNIQUE && !manager.isStaged())
+    {
+      datasource.managerClaimStatusUpdate(manager.getClaimant(), ProcessingStatus.QUARANTINED);
+    }
+    else if (manager.getLotType() == LotType.UNIQUE)
+    {
+      datasource.convertIrisToDatabase(manager, ProcessingStatus.QUARANTINED);
+    }
+    else if (manager.getLots() != null)
+    {
+      datasource.unpackLots(manager, ProcessingStatus.QUARANTINED);
+    }
+    else
+    {
+      datasource.managerStatusUpdate(manager.getUid(), manager.getOwner(), ProcessingStatus.QUARANTINED);
+    }
+  }
+
+  /**
+   * Set the maximum number of small lots packed in a single execution of IRIS
+   *
+   * @param coalesceLots the maximum number of small lots packed in a single execution of IRIS
+   * @throws BackendException if the maximum number of lots is invalid
+   */
+  public void setCoalesceLots(final String coalesceLots) throws BackendException
+  {
+    if (StringUtils.isBlank(coalesceLots))
+    {
+      return;
+    }
+
+    try
+    {
+      this.coalesceLots = Integer.parseInt(coalesceLots);
+
+      if (this.coalesceLots < 2 || this.coalesceLots > HostDatasource.PACK_CAPACITY)
+      {
+        throw new BackendException("host.iris.coalesce.lots is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.coalesce.lots is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Set the maximum number of certificates of a lot to be packed with other lots, zero disables the packing
+   *
+   * @param coalesceSize the maximum number of certificates of a lot to be packed with other lots
+   * @throws BackendException if the maximum number of certificates is invalid
+   */
+  public void setCoalesceSize(final String coalesceSize) throws BackendException
+  {
+    if (StringUtils.isBlank(coalesceSize))
+    {
+      return;
+    }
+
+    try
+    {
+      this.coalesceSize = Integer.parseInt(coalesceSize);
+
+      if (this.coalesceSize < 0)
+      {
+        throw new BackendException("host.iris.coalesce.size is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.coalesce.size is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Hand back as ready the lots claimed to be packed with the lot, once the packing failed, restoring the lot as claimed alone
+   *
+   * @param manager the lot's manager
+   * @param lots the lot as claimed, followed by the lots claimed to be packed with it
+   * @throws BackendException if a database access error occurs
+   */
+  private void unclaim(final Manager manager, final List<Manager> lots) throws BackendException
+  {
+    manager.setLots(null);
+
+    manager.setUid(lots.get(0).getUid());
+
+    manager.setTables(lots.get(0).getTables());
+
+    manager.setOwner(lots.get(0).getOwner());
+
+    for (Manager lot : lots.subList(1, lots.size()))
+    {
+      datasource.managerStatusUpdate(lot.getUid(), lot.getOwner(), ProcessingStatus.READY);
+    }
+  }
 }
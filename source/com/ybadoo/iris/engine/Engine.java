@@ -18,16 +18,38 @@
 package com.ybadoo.iris.engine;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import org.apache.commons.lang3.StringUtils;
 
+import com.ybadoo.iris.constant.LotType;
+import com.ybadoo.iris.constant.ProcessingStatus;
 import com.ybadoo.iris.datasource.HostDatasource;
 import com.ybadoo.iris.entity.Manager;
+import com.ybadoo.iris.entity.Recover;
 import com.ybadoo.iris.exception.BackendException;
 
 /**
@@ -40,20 +62,65 @@ public abstract class Engine implements Serializable
    */
   protected static final Logger logger = Logger.getLogger(Engine.class.getName());
 
+  /**
+   * The number of lots in the pipeline per worker: one staged, one coded by the Iris.exe and one drained
+   */
+  private static final int PIPELINE_DEPTH = 3;
+
+  /**
+   * The interval between two searches for lots without a signal, in seconds, to pick up lots not notified
+   */
+  private static final int POLLING_INTERVAL = 30;
+
+  /**
+   * The longest time suggested to wait before the next recover of a lot, in seconds
+   */
+  private static final long RECOVER_INTERVAL_MAX = 300;
+
+  /**
+   * The shortest time suggested to wait before the next recover of a lot, in seconds
+   */
+  private static final long RECOVER_INTERVAL_MIN = 1;
+
   /**
    * Version number of serializable class
    */
   private static final long serialVersionUID = 1L;
 
+  /**
+   * The micro-batching of the unique certificates
+   */
+  private final BatchEngine batch = new BatchEngine();
+
+  /**
+   * The identifiers of the lots cancelled by the user while running the Iris.exe, killed and discarded by their worker
+   */
+  private transient Set<String> cancelled;
+
   /**
    * The host datasource
    */
   protected final HostDatasource datasource;
 
   /**
-   * The exception on the execution
+   * The thread responsible of claiming the lots and handing them to the pre-processing stage
+   */
+  private transient Thread dispatcher;
+
+  /**
+   * The executor of the post-processing stage
+   */
+  private transient ExecutorService drainer;
+
+  /**
+   * The pump of the output of the runs of the Iris.exe
+   */
+  private transient StreamGobblerEngine gobbler;
+
+  /**
+   * The exception on the claim of the lots, or null if the last claim succeeded
    */
-  protected Exception exception;
+  protected volatile Exception exception;
 
   /**
    * The Iris.exe executable address
@@ -61,257 +128,1896 @@ public abstract class Engine implements Serializable
   private String executable;
 
   /**
-   * The thread responsible of the execution
+   * A worker is reserved to the unique certificates, claimed apart from the pipeline, so the interactive requests do not wait for the bulk lots
    */
-  private transient Thread motor;
+  private boolean fastLane;
 
   /**
-   * The timeout waiting for Iris.exe response, in seconds
+   * The percentile of the runtime of the last lots past which a straggler lot is hedged by a duplicate run on an idle worker, or 0 to disable the hedging
    */
-  private long timeout;
+  private double hedgePercentile = 95;
 
   /**
-   * The Iris.exe executable runs on wine
+   * The permits of the lots in the pipeline, from the claim to the end of the post-processing stage
    */
-  private boolean wine;
+  private transient Semaphore idle;
 
   /**
-   * Constructor
-   *
-   * @param datasource the host datasource
+   * The adaptive limit of the concurrent runs of the Iris.exe
    */
-  protected Engine(final HostDatasource datasource)
-  {
-    this.datasource = datasource;
-  }
+  private final LimiterEngine limiter = new LimiterEngine();
 
   /**
-   * Get the thread responsible of the execution
-   *
-   * @return the thread responsible of the execution
+   * The worker reserved to the unique certificates, or null if there is no fast lane
    */
-  private Thread createMotor()
-  {
-    return new Thread()
-    {
-      /* (non-Javadoc)
-       * @see java.lang.Thread#run()
-       */
-      @Override
-      public synchronized void run()
-      {
-        Manager manager = null;
+  private transient WorkerEngine lane;
 
-        try
-        {
-          while (exception == null && (manager = datasource.nextCertificate()) != null)
-          {
-            final var lotName = preSynchronized(manager);
+  /**
+   * The thread responsible of listening the lots submitted by other hosts
+   */
+  private transient Thread listener;
 
-            final var proc = Runtime.getRuntime().exec(getCommandLine(lotName));
+  /**
+   * The lots handed from the pre-processing stage to the workers
+   */
+  private transient BlockingQueue<Lot> lots;
 
-            final var errorGobbler = new StreamGobblerEngine(proc.getErrorStream(), "ERROR");
+  /**
+   * The timing of the stages of the pipeline
+   */
+  private final PipelineEngine pipeline = new PipelineEngine();
 
-            final var outputGobbler = new StreamGobblerEngine(proc.getInputStream(), "OUTPUT");
+  /**
+   * The workers responsible of the execution
+   */
+  private transient List<WorkerEngine> pool;
 
-            errorGobbler.start();
+  /**
+   * The executor of the retries of the lots failed by a transient error, after the backoff
+   */
+  private transient ScheduledExecutorService retrier;
 
-            outputGobbler.start();
+  /**
+   * The number of retries of a lot failed by a transient error of the Iris.exe, before the lot is quarantined
+   */
+  private int retryAttempts = 3;
 
-            if (proc.waitFor(timeout, TimeUnit.SECONDS))
-            {
-              if (proc.exitValue() != 0)
-              {
-                exception = irisMessageError(proc.exitValue());
-              }
-            }
-            else
-            {
-              exception = new TimeoutException("Iris not respond");
-            }
+  /**
+   * The delay before the first retry of a lot failed by a transient error, in milliseconds, doubled on each retry
+   */
+  private long retryBackoff = 1000;
 
-            proc.destroy();
+  /**
+   * The runs of the Iris.exe on a lot alone, by the identifier of the lot, followed by their progress and killed if the user cancels the lot
+   */
+  private transient Map<String, Run> runs;
 
-            if (exception == null)
-            {
-              posSynchronized(manager);
-            }
-          }
-        }
-        catch (final InterruptedException interruptedException)
-        {
-          logger.log(Level.SEVERE, interruptedException.getMessage(), interruptedException);
+  /**
+   * The engine is running
+   */
+  private volatile boolean running;
 
-          exception = interruptedException;
+  /**
+   * The signal of new lots in the manager table
+   */
+  private final transient Object signal = new Object();
 
-          Thread.currentThread().interrupt();
-        }
-        catch (final Exception exceptions)
-        {
-          logger.log(Level.SEVERE, exceptions.getMessage(), exceptions);
+  /**
+   * The number of signals of new lots raised, so each thread searching for lots knows whether a signal arrived since its last search
+   */
+  private long signals;
 
-          exception = exceptions;
-        }
-      }
-    };
-  }
+  /**
+   * The executor of the pre-processing stage
+   */
+  private transient ExecutorService stager;
+
+  /**
+   * The timeout waiting for Iris.exe response, in seconds, plus the runtime estimated by the size of the lot
+   */
+  private long timeout;
+
+  /**
+   * The multiple of the runtime estimated by the size of the lot waited for Iris.exe response
+   */
+  private double timeoutFactor = 3;
+
+  /**
+   * The number of workers waiting for a lot, idle to run a hedged duplicate
+   */
+  private transient AtomicInteger waiting;
+
+  /**
+   * The Iris.exe executable runs on wine
+   */
+  private boolean wine;
+
+  /**
+   * The number of workers, each one running its own Iris.exe
+   */
+  private int workers = 1;
+
+  /**
+   * The directory of the execution slots of the workers, or null to share the web server's one
+   */
+  private File workspace;
 
   /**
-   * Get the Iris.exe executable command line
+   * Constructor
    *
-   * @param lotName the name of the lot
-   * @return the Iris.exe executable command line
+   * @param datasource the host datasource
    */
-  private String getCommandLine(final String lotName)
+  protected Engine(final HostDatasource datasource)
   {
-    final var commandLine = new StringBuilder();
+    this.datasource = datasource;
+  }
 
-    if (wine)
+  /**
+   * Discard the lot cancelled by the user while running the Iris.exe, releasing its room in the pipeline
+   *
+   * @param manager the manager of the lot
+   */
+  private void abandon(final Manager manager)
+  {
+    try
     {
-      commandLine.append("wine ");
-    }
+      logger.log(Level.INFO, "Lot " + manager.getUid() + " cancelled");
 
-    commandLine.append(executable);
+      purge(manager);
 
-    if (lotName != null)
+      pipeline.cancelled();
+    }
+    finally
     {
-      commandLine.append(" lname=").append(lotName);
+      idle.release();
     }
-
-    return commandLine.toString();
   }
 
   /**
-   * Get the exception on the execution
+   * Bisect the lot failed by its certificates, coding the halves again recursively, to isolate the certificates causing the failure,
+   * returned to the user with a fault while the other certificates of the lot are coded
    *
-   * @return the exception on the execution
+   * @param worker the worker
+   * @param manager the manager of the lot
+   * @param failure the failure of the lot
+   * @throws BackendException if a database access error occurs, or a half fails by other cause
+   * @throws IOException if the Iris.exe can not be launched
+   * @throws InterruptedException if the engine is stopped while waiting
+   * @throws TimeoutException if the Iris.exe does not respond in the timeout
    */
-  public Exception getException()
+  private void bisect(final WorkerEngine worker, final Manager manager, final BackendException failure) throws BackendException, IOException, InterruptedException, TimeoutException
   {
-    return exception;
+    logger.log(Level.WARNING, "Lot " + manager.getUid() + " failed, bisecting to isolate the certificates: " + failure.getMessage());
+
+    final List<String> faults = new ArrayList<>();
+
+    split(worker, manager, datasource.certificateKeys(manager), faults);
+
+    datasource.faultCertificates(manager, faults, failure.getMessage());
+
+    pipeline.bisected(faults.size());
   }
 
   /**
-   * Get the message error
+   * Wait for a signal of new lots, or for the polling interval
    *
-   * @param exitValue the identifier of the message error
-   * @return the message error
+   * @param seen the number of signals raised before the last search for lots
+   * @throws InterruptedException if the engine is stopped while waiting
    */
-  private BackendException irisMessageError(final int exitValue)
+  private void awaitSignal(final long seen) throws InterruptedException
   {
-    switch (exitValue)
+    synchronized (signal)
     {
-      case  0: return null;
-      case  2: return new BackendException("(2) No records coded");
-      case  4: return new BackendException("(4) MUSE initialization error");
-      case  5: return new BackendException("(5) Table database problem");
-      case  6: return new BackendException("(6) Coding failure");
-      case  7: return new BackendException("(7) Lot-specific error");
-      case  8: return new BackendException("(8) Invalid paramater(s)");
-      case  9: return new BackendException("(9) Technical failure or coding file is missing");
-      default: return new BackendException("exitValue: " + exitValue);
+      if (signals == seen)
+      {
+        signal.wait(TimeUnit.SECONDS.toMillis(POLLING_INTERVAL));
+      }
     }
   }
 
   /**
-   * Run post-processing on the lot
+   * Kill the Iris.exe running the lot cancelled by the user, so its worker is freed at once, the lot being discarded by the worker;
+   * a lot not running alone on this host is discarded when its run ends
    *
-   * @param manager the manager of the lot
+   * @param uid the identifier of the lot
    */
-  protected abstract void posSynchronized(final Manager manager) throws BackendException;
+  public void cancel(final String uid)
+  {
+    if (runs != null)
+    {
+      runs.computeIfPresent(uid, (key, run) ->
+      {
+        cancelled.add(key);
+
+        kill(run.getProcess());
+
+        return run;
+      });
+    }
+  }
 
   /**
-   * Run pre-processing on the lot
+   * Claim the next lot to be processed, keeping the exception on the claim
    *
-   * @param manager the manager of the lot
-   * @return the lot name
-   * @throws BackendException
+   * @param unique claim only the unique certificates
+   * @return the next lot to be processed, or null if there is no lot ready or the claim failed
    */
-  protected abstract String preSynchronized(final Manager manager) throws BackendException;
+  private Manager claim(final boolean unique)
+  {
+    try
+    {
+      final var manager = unique ? datasource.nextUniqueLot() : datasource.nextCertificate();
+
+      exception = null;
+
+      return manager;
+    }
+    catch (final BackendException backendException)
+    {
+      logger.log(Level.SEVERE, backendException.getMessage(), backendException);
+
+      exception = backendException;
+
+      return null;
+    }
+  }
 
   /**
-   * Invocar a execucao da ferramenta IRIS
+   * Code by the Iris.exe the lot staged by the pre-processing stage, handing it to the post-processing stage
+   *
+   * @param worker the worker
+   * @param lot the lot
+   * @throws InterruptedException if the engine is stopped while waiting
    */
-  public synchronized void process()
+  private void code(final WorkerEngine worker, final Lot lot) throws InterruptedException
   {
-    if (motor == null || !motor.isAlive())
+    final var start = System.nanoTime();
+
+    try
+    {
+      final var manager = lot.getManager();
+
+      final var exitValue = race(worker, lot);
+
+      pipeline.coded(System.nanoTime() - start);
+
+      if (cancelled.remove(manager.getUid()))
+      {
+        drainer.execute(() -> abandon(manager));
+      }
+      else if (exitValue == 0)
+      {
+        pipeline.timed(System.nanoTime() - start, manager.getCertificates());
+
+        limiter.coded(manager.getCertificates());
+
+        drainer.execute(() -> drain(manager));
+      }
+      else if (isTransient(exitValue) && lot.getAttempts() < retryAttempts)
+      {
+        final var delay = retryBackoff << Math.min(lot.getAttempts(), 16);
+
+        logger.log(Level.WARNING, "Lot " + manager.getUid() + " failed, retry " + lot.retried() + " of " + retryAttempts + " in " + delay + " ms: " + irisMessageError(exitValue).getMessage());
+
+        pipeline.retried();
+
+        retrier.schedule(() -> retry(lot), delay, TimeUnit.MILLISECONDS);
+      }
+      else if (isCertificateFailure(exitValue) && isBisectable() && manager.getLotType() == LotType.MULTIPLE && manager.getCertificates() > 1)
+      {
+        bisect(worker, manager, irisMessageError(exitValue));
+
+        drainer.execute(() -> drain(manager));
+      }
+      else
+      {
+        final var failure = irisMessageError(exitValue);
+
+        drainer.execute(() -> quarantine(manager, failure));
+      }
+    }
+    catch (final InterruptedException interruptedException)
     {
-      motor = createMotor();
+      idle.release();
 
-      motor.start();
+      throw interruptedException;
+    }
+    catch (final Exception exceptions)
+    {
+      quarantine(lot.getManager(), exceptions);
     }
   }
 
   /**
-   * Configure the IRIS's executable address
+   * Collect the unique certificates arriving in the batch window before launching the Iris.exe,
+   * or join the lot to the batch being collected by another worker
    *
-   * @param executable the IRIS's executable address
-   * @throws BackendException encapsulation of the exceptions {@link java.lang.NullPointerException} and {@link java.lang.SecurityException}
+   * @param manager the manager of the unique certificate
+   * @return true if the worker collected the batch and must process it, false if the lot joined the batch of another worker
+   * @throws BackendException if a database access error occurs
+   * @throws InterruptedException if the engine is stopped while waiting
    */
-  public void setExecutable(final String executable) throws BackendException
+  private boolean collect(final Manager manager) throws BackendException, InterruptedException
   {
-    if (StringUtils.isBlank(executable))
+    synchronized (batch)
     {
-      throw new BackendException("host.iris.executable is null or empty");
+      final var collector = batch.getCollector();
+
+      if (collector != null)
+      {
+        datasource.managerTransferClaim(manager.getClaimant(), collector);
+
+        return false;
+      }
+
+      batch.open(manager.getClaimant());
     }
 
-    final var iris = new File(executable);
+    final var start = System.nanoTime();
+
+    var queued = 0;
 
     try
     {
-      if (!iris.exists())
-      {
-        throw new BackendException("File in host.iris.executable not found");
-      }
+      queued = datasource.countUnique(manager.getClaimant());
 
-      if (!iris.canExecute())
+      final var deadline = start + TimeUnit.MILLISECONDS.toNanos(batch.window(queued));
+
+      while (queued < batch.getMaxSize() && System.nanoTime() < deadline)
       {
-        throw new BackendException("File in host.iris.executable without permission of execution");
+        synchronized (signal)
+        {
+          signal.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+
+        queued = datasource.countUnique(manager.getClaimant());
       }
     }
-    catch (final SecurityException securityException)
+    finally
     {
-      throw new BackendException("host.iris.executable is invalid", securityException);
+      batch.close(queued, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
-    this.executable = executable;
+    return true;
   }
 
   /**
-   * Set the timeout waiting for Iris response, in seconds
+   * Drop the copy of a lot made for a hedged duplicate that lost the race
    *
-   * @param timeout timeout waiting for Iris response, in seconds
-   * @throws BackendException
+   * @param copy the copy of the lot
    */
-  public void setTimeout(final String timeout) throws BackendException
+  private void discard(final Manager copy)
   {
-    if (StringUtils.isBlank(timeout))
+    try
     {
-      throw new BackendException("host.iris.timeout is null or empty");
+      datasource.dropLot(copy);
+    }
+    catch (final BackendException backendException)
+    {
+      logger.log(Level.WARNING, backendException.getMessage(), backendException);
     }
+  }
 
+  /**
+   * Claim the lots while there is room in the pipeline, sleeping on the signal of new lots when there is no lot to be processed
+   */
+  private void dispatch()
+  {
     try
     {
-      this.timeout = Long.parseLong(timeout);
-
-      if (this.timeout < 1l)
+      while (running)
       {
-        throw new BackendException("host.iris.timeout is invalid");
+        idle.acquire();
+
+        final var seen = getSignals();
+
+        final var manager = claim(false);
+
+        if (manager != null)
+        {
+          stager.execute(() -> stage(manager));
+        }
+        else
+        {
+          idle.release();
+
+          awaitSignal(seen);
+        }
       }
     }
-    catch (final NumberFormatException numberFormatException)
+    catch (final InterruptedException interruptedException)
     {
-      throw new BackendException("host.iris.timeout is invalid", numberFormatException);
+      Thread.currentThread().interrupt();
     }
   }
 
   /**
-   * Configure if the IRIS's executable runs on wine
+   * Run the post-processing stage on the lot coded by the Iris.exe, releasing its room in the pipeline
    *
-   * @param wine the IRIS's executable runs on wine
+   * @param manager the manager of the lot
    */
-  public void setWine(final String wine)
+  private void drain(final Manager manager)
   {
-    this.wine = "true".equals(wine);
+    final var start = System.nanoTime();
+
+    try
+    {
+      posSynchronized(manager);
+    }
+    catch (final Exception exceptions)
+    {
+      quarantine(manager, exceptions);
+
+      return;
+    }
+
+    purge(manager);
+
+    pipeline.drained(System.nanoTime() - start);
+
+    idle.release();
+  }
+
+  /**
+   * Estimate the progress of the lot ready or running: the certificates coded so far by the Iris.exe running the lot alone on this
+   * host, the time to the end of the processing, by the average runtime per certificate, and the time to wait before the next
+   * recover, half of the time to the end
+   *
+   * @param recover the monitoring of the lot, with its status, certificates and, if ready, the certificates ahead in the queue, unknown
+   *        if the lots are shared fairly
+   */
+  public void estimate(final Recover recover)
+  {
+    final var certificates = recover.getCertificates() == null ? 0 : recover.getCertificates();
+
+    final long remaining;
+
+    if (ProcessingStatus.READY.toString().equals(recover.getStatus()))
+    {
+      if (recover.getBacklog() == null)
+      {
+        // Without the certificates ahead the time to the end is unknown, only the time to wait before the next recover is suggested
+
+        final var seconds = TimeUnit.NANOSECONDS.toSeconds(pipeline.estimate(certificates)) + 1;
+
+        recover.setRetryAfter(Math.max(RECOVER_INTERVAL_MIN, Math.min(RECOVER_INTERVAL_MAX, seconds / 2)));
+
+        return;
+      }
+
+      // The lots ahead are shared by the concurrent runs, the lot itself is coded by a single run
+
+      remaining = pipeline.estimate(recover.getBacklog()) / Math.max(1, limiter.getLimit()) + pipeline.estimate(certificates);
+    }
+    else if (ProcessingStatus.RUNNING.toString().equals(recover.getStatus()))
+    {
+      final var run = runs == null ? null : runs.get(recover.getUid());
+
+      if (run != null)
+      {
+        recover.setCoded(run.getCoded());
+
+        remaining = pipeline.estimate(run.getCertificates() - run.getCoded());
+      }
+      else
+      {
+        remaining = pipeline.estimate(certificates);
+      }
+    }
+    else
+    {
+      return;
+    }
+
+    final var eta = TimeUnit.NANOSECONDS.toSeconds(remaining) + 1;
+
+    recover.setEta(eta);
+
+    recover.setRetryAfter(Math.max(RECOVER_INTERVAL_MIN, Math.min(RECOVER_INTERVAL_MAX, eta / 2)));
+  }
+
+  /**
+   * Run the Iris.exe on the lot, waiting for its exit; the run of a lot running alone is registered, followed by its progress and
+   * killed if the user cancels the lot
+   *
+   * @param worker the worker
+   * @param lotName the name of the lot
+   * @param certificates the number of certificates of the lot
+   * @param uid the identifier of the lot running alone, or null if the run is not registered
+   * @return the exit value of the Iris.exe
+   * @throws IOException if the Iris.exe can not be launched
+   * @throws InterruptedException if the engine is stopped while waiting
+   * @throws TimeoutException if the Iris.exe does not respond in the timeout
+   */
+  private int execute(final WorkerEngine worker, final String lotName, final int certificates, final String uid) throws IOException, InterruptedException, TimeoutException
+  {
+    final var run = uid != null ? new Run(certificates) : null;
+
+    final var proc = launch(worker, lotName, run);
+
+    if (uid != null)
+    {
+      runs.put(uid, run);
+    }
+
+    try
+    {
+      final var limit = getTimeout(certificates);
+
+      if (!proc.waitFor(limit, TimeUnit.MILLISECONDS))
+      {
+        kill(proc);
+
+        throw new TimeoutException("Iris not respond in " + limit + " ms");
+      }
+
+      return proc.exitValue();
+    }
+    catch (final InterruptedException interruptedException)
+    {
+      kill(proc);
+
+      throw interruptedException;
+    }
+    finally
+    {
+      if (uid != null)
+      {
+        runs.remove(uid);
+      }
+
+      proc.destroy();
+    }
+  }
+
+  /**
+   * Get the JMX name of the micro-batching of the unique certificates
+   *
+   * @return the JMX name of the micro-batching of the unique certificates
+   * @throws JMException if the name is malformed
+   */
+  private ObjectName getBatchName() throws JMException
+  {
+    return new ObjectName("com.ybadoo.iris:type=Engine,name=Batch");
+  }
+
+  /**
+   * Get the Iris.exe executable command, one argument per element, so the paths with spaces are passed as a single argument
+   *
+   * @param lotName the name of the lot
+   * @return the Iris.exe executable command
+   */
+  private List<String> getCommand(final String lotName)
+  {
+    final List<String> command = new ArrayList<>();
+
+    if (wine)
+    {
+      command.add("wine");
+    }
+
+    command.add(executable);
+
+    if (lotName != null)
+    {
+      command.add("lname=" + lotName);
+    }
+
+    return command;
+  }
+
+  /**
+   * Get the JMX name of the adaptive limit of the concurrent runs of the Iris.exe
+   *
+   * @return the JMX name of the adaptive limit of the concurrent runs of the Iris.exe
+   * @throws JMException if the name is malformed
+   */
+  private ObjectName getLimiterName() throws JMException
+  {
+    return new ObjectName("com.ybadoo.iris:type=Engine,name=Limiter");
+  }
+
+  /**
+   * Get the number of lots in the pipeline per worker
+   *
+   * @return the number of lots in the pipeline per worker
+   */
+  protected int getDepth()
+  {
+    return PIPELINE_DEPTH;
+  }
+
+  /**
+   * Get the exception on the claim of the lots
+   *
+   * @return the exception on the claim of the lots, or null if the last claim succeeded
+   */
+  public Exception getException()
+  {
+    return exception;
+  }
+
+  /**
+   * Get the JMX name of the timing of the stages of the pipeline
+   *
+   * @return the JMX name of the timing of the stages of the pipeline
+   * @throws JMException if the name is malformed
+   */
+  private ObjectName getPipelineName() throws JMException
+  {
+    return new ObjectName("com.ybadoo.iris:type=Engine,name=Pipeline");
+  }
+
+  /**
+   * Get the timeout waiting for Iris.exe response on a lot, by the size of the lot and the runtime observed per certificate
+   *
+   * @param certificates the number of certificates of the lot
+   * @return the timeout waiting for Iris.exe response, in milliseconds
+   */
+  private long getTimeout(final int certificates)
+  {
+    return TimeUnit.SECONDS.toMillis(timeout) + TimeUnit.NANOSECONDS.toMillis((long) (timeoutFactor * pipeline.estimate(certificates)));
+  }
+
+  /**
+   * Get the number of signals of new lots raised
+   *
+   * @return the number of signals of new lots raised
+   */
+  private long getSignals()
+  {
+    synchronized (signal)
+    {
+      return signals;
+    }
+  }
+
+  /**
+   * Get the number of workers, each one running its own Iris.exe
+   *
+   * @return the number of workers, each one running its own Iris.exe
+   */
+  protected int getWorkers()
+  {
+    return workers;
+  }
+
+  /**
+   * Run by the worker the hedged duplicate of a straggler lot on a copy of the lot, settling the race if it codes the copy first
+   *
+   * @param worker the worker
+   * @param hedge the race of the lot
+   */
+  private void hedge(final WorkerEngine worker, final Hedge hedge)
+  {
+    final var manager = hedge.getManager();
+
+    Manager copy = null;
+
+    try
+    {
+      if (hedge.isSettled())
+      {
+        return;
+      }
+
+      copy = datasource.splitLot(manager, datasource.certificateKeys(manager));
+
+      final var proc = launch(worker, copy.getTables(), null);
+
+      try
+      {
+        if (hedge.attach(proc) && proc.waitFor(getTimeout(manager.getCertificates()), TimeUnit.MILLISECONDS) && proc.exitValue() == 0 && hedge.coded(copy))
+        {
+          copy = null;
+        }
+      }
+      finally
+      {
+        kill(proc);
+      }
+    }
+    catch (final InterruptedException interruptedException)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (final Exception exceptions)
+    {
+      logger.log(Level.WARNING, "Hedge of lot " + manager.getUid() + " failed: " + exceptions.getMessage(), exceptions);
+    }
+    finally
+    {
+      if (copy != null)
+      {
+        discard(copy);
+      }
+    }
+  }
+
+  /**
+   * Get the message error
+   *
+   * @param exitValue the identifier of the message error
+   * @return the message error
+   */
+  private BackendException irisMessageError(final int exitValue)
+  {
+    switch (exitValue)
+    {
+      case  0: return null;
+      case  2: return new BackendException("(2) No records coded");
+      case  4: return new BackendException("(4) MUSE initialization error");
+      case  5: return new BackendException("(5) Table database problem");
+      case  6: return new BackendException("(6) Coding failure");
+      case  7: return new BackendException("(7) Lot-specific error");
+      case  8: return new BackendException("(8) Invalid paramater(s)");
+      case  9: return new BackendException("(9) Technical failure or coding file is missing");
+      default: return new BackendException("exitValue: " + exitValue);
+    }
+  }
+
+  /**
+   * Tests whether the lot can be bisected to isolate the certificates causing a failure of the Iris.exe
+   *
+   * @return true if the lot can be bisected, false otherwise
+   */
+  protected boolean isBisectable()
+  {
+    return true;
+  }
+
+  /**
+   * Tests whether a worker is reserved to the unique certificates, besides the workers
+   *
+   * @return true if a worker is reserved to the unique certificates, false otherwise
+   */
+  protected boolean isFastLane()
+  {
+    return fastLane;
+  }
+
+  /**
+   * Tests whether a straggler lot can be hedged by a duplicate run of the Iris.exe on a copy of the lot, named by its uid
+   *
+   * @return true if the lot can be hedged, false otherwise
+   */
+  protected boolean isHedgeable()
+  {
+    return true;
+  }
+
+  /**
+   * Tests whether the lots flow through the pipeline, staged and drained apart from the worker that codes them, or are claimed by
+   * the worker and run in its execution slot from the pre-processing to the post-processing
+   *
+   * @return true if the lots flow through the pipeline, false otherwise
+   */
+  protected boolean isPipelined()
+  {
+    return true;
+  }
+
+  /**
+   * Tests whether the exit value of the Iris.exe is a failure caused by the certificates of the lot, worth a bisection of the lot
+   *
+   * @param exitValue the exit value of the Iris.exe
+   * @return true if the failure is caused by the certificates, false otherwise
+   */
+  private static boolean isCertificateFailure(final int exitValue)
+  {
+    return exitValue == 6 || exitValue == 7;
+  }
+
+  /**
+   * Tests whether the exit value of the Iris.exe is a transient error, worth a retry of the lot
+   *
+   * @param exitValue the exit value of the Iris.exe
+   * @return true if the error is transient, false otherwise
+   */
+  private static boolean isTransient(final int exitValue)
+  {
+    return exitValue == 4 || exitValue == 5 || exitValue == 9;
+  }
+
+  /**
+   * Tests whether the Iris.exe executable runs on wine, each worker in its own Wine prefix if there is a workspace
+   *
+   * @return true if the Iris.exe executable runs on wine, false otherwise
+   */
+  protected boolean isWine()
+  {
+    return wine;
+  }
+
+  /**
+   * Kill the Iris.exe and all its descendants, as the wine launcher does not forward the termination to the Iris.exe
+   *
+   * @param proc the process of the Iris.exe
+   */
+  static void kill(final Process proc)
+  {
+    // The descendants are killed first, since they are reparented and lost once the launcher is gone
+
+    proc.descendants().forEach(ProcessHandle::destroyForcibly);
+
+    proc.destroyForcibly();
+  }
+
+  /**
+   * Code the unique certificates on the worker reserved to the fast lane, claiming them apart from the pipeline, until the engine is stopped
+   *
+   * @param worker the worker reserved to the fast lane
+   */
+  void lane(final WorkerEngine worker)
+  {
+    try
+    {
+      while (running)
+      {
+        final var seen = getSignals();
+
+        final var manager = claim(true);
+
+        if (manager != null)
+        {
+          rush(worker, manager);
+        }
+        else
+        {
+          awaitSignal(seen);
+        }
+      }
+    }
+    catch (final InterruptedException interruptedException)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Launch the Iris.exe on the lot in the execution slot of the worker, handing its output to the pump
+   *
+   * @param worker the worker
+   * @param lotName the name of the lot
+   * @param run the run followed by its progress, or null if the progress is not followed
+   * @return the process of the Iris.exe
+   * @throws IOException if the Iris.exe can not be launched
+   */
+  private Process launch(final WorkerEngine worker, final String lotName, final Run run) throws IOException
+  {
+    final var builder = new ProcessBuilder(getCommand(lotName)).directory(worker.getDirectory());
+
+    builder.environment().putAll(worker.getEnvironment());
+
+    final var proc = builder.start();
+
+    if (run != null)
+    {
+      run.started(proc);
+    }
+
+    gobbler.register(proc, lotName, run);
+
+    return proc;
+  }
+
+  /**
+   * Listen the lots submitted by other hosts, raising the signal of new lots
+   */
+  private void listen()
+  {
+    while (running)
+    {
+      try
+      {
+        if (datasource.awaitLots(POLLING_INTERVAL))
+        {
+          signal();
+        }
+      }
+      catch (final BackendException exception)
+      {
+        logger.log(Level.WARNING, exception.getMessage(), exception);
+
+        try
+        {
+          TimeUnit.SECONDS.sleep(POLLING_INTERVAL);
+        }
+        catch (final InterruptedException interruptedException)
+        {
+          Thread.currentThread().interrupt();
+
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Create the executor of a stage of the pipeline
+   *
+   * @param name the name of the stage
+   * @param threads the number of threads of the stage
+   * @return the executor of the stage
+   */
+  private static ExecutorService newStage(final String name, final int threads)
+  {
+    final var counter = new AtomicInteger();
+
+    return Executors.newFixedThreadPool(threads, runnable -> new Thread(runnable, name + "-" + counter.getAndIncrement()));
+  }
+
+  /**
+   * Run post-processing on the lot
+   *
+   * @param manager the manager of the lot
+   */
+  protected abstract void posSynchronized(final Manager manager) throws BackendException;
+
+  /**
+   * Run pre-processing on the lot
+   *
+   * @param manager the manager of the lot
+   * @return the lot name
+   * @throws BackendException
+   */
+  protected abstract String preSynchronized(final Manager manager) throws BackendException;
+
+  /**
+   * Discard the lots cancelled by the user while the lot was running, once its run ended
+   *
+   * @param manager the manager of the lot
+   */
+  private void purge(final Manager manager)
+  {
+    try
+    {
+      datasource.dropCancelled(manager);
+    }
+    catch (final BackendException backendException)
+    {
+      logger.log(Level.WARNING, backendException.getMessage(), backendException);
+    }
+  }
+
+  /**
+   * Quarantine the lot after a failure, releasing its room in the pipeline, so the engine carries on with the next lots
+   *
+   * @param manager the manager of the lot
+   * @param failure the failure of the lot
+   */
+  private void quarantine(final Manager manager, final Exception failure)
+  {
+    try
+    {
+      quarantineLot(manager, failure);
+    }
+    finally
+    {
+      idle.release();
+    }
+  }
+
+  /**
+   * Mark the lot as quarantined after a failure, logging the failure
+   *
+   * @param manager the manager of the lot
+   * @param failure the failure of the lot
+   */
+  private void quarantineLot(final Manager manager, final Exception failure)
+  {
+    logger.log(Level.SEVERE, "Lot " + manager.getUid() + " quarantined: " + failure.getMessage(), failure);
+
+    try
+    {
+      quarantineSynchronized(manager);
+
+      pipeline.quarantined();
+
+      purge(manager);
+    }
+    catch (final Exception exceptions)
+    {
+      logger.log(Level.SEVERE, exceptions.getMessage(), exceptions);
+    }
+  }
+
+  /**
+   * Mark the lot as quarantined, returning its certificates to the user as received
+   *
+   * @param manager the manager of the lot
+   * @throws BackendException if a database access error occurs
+   */
+  protected abstract void quarantineSynchronized(final Manager manager) throws BackendException;
+
+  /**
+   * Run the Iris.exe on the lot, waiting for its exit, and hedge it by a duplicate run on an idle worker once it runs past the
+   * percentile of the runtime of the last lots, keeping the run finished first and killing the other; the run of a lot running
+   * alone is registered, followed by its progress and killed if the user cancels the lot
+   *
+   * @param worker the worker
+   * @param lot the lot
+   * @return the exit value of the Iris.exe
+   * @throws BackendException if a database access error occurs merging the copy coded by the duplicate
+   * @throws IOException if the Iris.exe can not be launched
+   * @throws InterruptedException if the engine is stopped while waiting
+   * @throws TimeoutException if the Iris.exe does not respond in the timeout
+   */
+  private int race(final WorkerEngine worker, final Lot lot) throws BackendException, IOException, InterruptedException, TimeoutException
+  {
+    final var manager = lot.getManager();
+
+    final var percentile = hedgePercentile > 0 && isHedgeable() ? pipeline.percentile(manager.getCertificates(), hedgePercentile) : -1;
+
+    final var limit = getTimeout(manager.getCertificates());
+
+    final var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limit);
+
+    final var hedge = new Hedge(manager);
+
+    // Packs and unique certificates are shared by several lots, so they are not killed when one of their lots is cancelled
+
+    final var alone = manager.getLotType() == LotType.MULTIPLE && manager.getLots() == null;
+
+    final var run = alone ? new Run(manager.getCertificates()) : null;
+
+    final var proc = launch(worker, lot.getName(), run);
+
+    if (alone)
+    {
+      runs.put(manager.getUid(), run);
+    }
+
+    try
+    {
+      if (percentile >= 0 && TimeUnit.NANOSECONDS.toMillis(percentile) < limit && !proc.waitFor(percentile, TimeUnit.NANOSECONDS) && waiting.get() > 0 && lots.offer(new Lot(hedge)))
+      {
+        logger.log(Level.INFO, "Lot " + manager.getUid() + " runs past " + TimeUnit.NANOSECONDS.toMillis(percentile) + " ms, hedged by a duplicate run");
+
+        pipeline.hedged();
+
+        try
+        {
+          CompletableFuture.anyOf(proc.onExit(), hedge.getCoded()).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        catch (final ExecutionException | TimeoutException exception)
+        {
+          // The exit of the Iris.exe is checked below, against the same deadline
+        }
+
+        if (!hedge.settle())
+        {
+          kill(proc);
+
+          proc.waitFor();
+
+          datasource.mergeLot(manager, hedge.getCoded().join());
+
+          pipeline.hedgeWon();
+
+          return 0;
+        }
+      }
+
+      if (!proc.waitFor(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+      {
+        kill(proc);
+
+        throw new TimeoutException("Iris not respond in " + limit + " ms");
+      }
+
+      return proc.exitValue();
+    }
+    catch (final InterruptedException interruptedException)
+    {
+      kill(proc);
+
+      if (!hedge.settle())
+      {
+        discard(hedge.getCoded().join());
+      }
+
+      throw interruptedException;
+    }
+    finally
+    {
+      if (alone)
+      {
+        runs.remove(manager.getUid());
+      }
+
+      hedge.settle();
+
+      proc.destroy();
+    }
+  }
+
+  /**
+   * Hand again to the workers a lot failed by a transient error
+   *
+   * @param lot the lot
+   */
+  private void retry(final Lot lot)
+  {
+    try
+    {
+      lots.put(lot);
+    }
+    catch (final InterruptedException interruptedException)
+    {
+      idle.release();
+
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Run the pre-processing, the Iris.exe and the post-processing on the lot claimed by the worker, in sequence, retrying the
+   * transient errors of the Iris.exe in place; the lot cancelled by the user while running is discarded
+   *
+   * @param worker the worker
+   * @param manager the manager of the lot
+   * @throws InterruptedException if the engine is stopped while waiting
+   */
+  private void rush(final WorkerEngine worker, final Manager manager) throws InterruptedException
+  {
+    // Packs and unique certificates are shared by several lots, so they are not killed when one of their lots is cancelled
+
+    final var uid = manager.getLotType() == LotType.MULTIPLE && manager.getLots() == null ? manager.getUid() : null;
+
+    try
+    {
+      final var lotName = preSynchronized(manager);
+
+      var exitValue = execute(worker, lotName, manager.getCertificates(), uid);
+
+      for (var attempt = 0; isTransient(exitValue) && attempt < retryAttempts && !cancelled.contains(manager.getUid()); attempt++)
+      {
+        pipeline.retried();
+
+        TimeUnit.MILLISECONDS.sleep(retryBackoff << Math.min(attempt, 16));
+
+        exitValue = execute(worker, lotName, manager.getCertificates(), uid);
+      }
+
+      if (cancelled.remove(manager.getUid()))
+      {
+        logger.log(Level.INFO, "Lot " + manager.getUid() + " cancelled");
+
+        purge(manager);
+
+        pipeline.cancelled();
+
+        return;
+      }
+
+      if (exitValue != 0)
+      {
+        throw irisMessageError(exitValue);
+      }
+
+      posSynchronized(manager);
+
+      purge(manager);
+    }
+    catch (final InterruptedException interruptedException)
+    {
+      throw interruptedException;
+    }
+    catch (final Exception exceptions)
+    {
+      cancelled.remove(manager.getUid());
+
+      quarantineLot(manager, exceptions);
+    }
+  }
+
+  /**
+   * Run the lots claimed by the worker in its execution slot, from the pre-processing to the post-processing, within the limit of
+   * concurrent runs, until the engine is stopped
+   *
+   * @param worker the worker
+   */
+  private void serve(final WorkerEngine worker)
+  {
+    try
+    {
+      while (running)
+      {
+        final var seen = getSignals();
+
+        final var manager = claim(false);
+
+        if (manager == null)
+        {
+          awaitSignal(seen);
+
+          continue;
+        }
+
+        // The permit is taken only by a worker holding a lot, so the idle workers do not count as runs of the Iris.exe
+
+        limiter.acquire();
+
+        try
+        {
+          rush(worker, manager);
+        }
+        finally
+        {
+          limiter.release();
+        }
+      }
+    }
+    catch (final InterruptedException interruptedException)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Set the maximum number of unique certificates waited for in a batch
+   *
+   * @param size the maximum number of unique certificates waited for in a batch
+   * @throws BackendException if the maximum number of certificates is invalid
+   */
+  public void setBatchSize(final String size) throws BackendException
+  {
+    batch.setMaxSize(size);
+  }
+
+  /**
+   * Set the maximum time waited to fill a batch of unique certificates, in milliseconds
+   *
+   * @param wait the maximum time waited to fill a batch of unique certificates, in milliseconds
+   * @throws BackendException if the maximum time is invalid
+   */
+  public void setBatchWait(final String wait) throws BackendException
+  {
+    batch.setMaxWait(wait);
+  }
+
+  /**
+   * Configure the IRIS's executable address
+   *
+   * @param executable the IRIS's executable address
+   * @throws BackendException encapsulation of the exceptions {@link java.lang.NullPointerException} and {@link java.lang.SecurityException}
+   */
+  public void setExecutable(final String executable) throws BackendException
+  {
+    if (StringUtils.isBlank(executable))
+    {
+      throw new BackendException("host.iris.executable is null or empty");
+    }
+
+    final var iris = new File(executable);
+
+    try
+    {
+      if (!iris.exists())
+      {
+        throw new BackendException("File in host.iris.executable not found");
+      }
+
+      if (!iris.canExecute())
+      {
+        throw new BackendException("File in host.iris.executable without permission of execution");
+      }
+    }
+    catch (final SecurityException securityException)
+    {
+      throw new BackendException("host.iris.executable is invalid", securityException);
+    }
+
+    this.executable = executable;
+  }
+
+  /**
+   * Configure if a worker is reserved to the unique certificates
+   *
+   * @param fastLane a worker is reserved to the unique certificates
+   */
+  public void setFastLane(final String fastLane)
+  {
+    this.fastLane = "true".equals(fastLane);
+  }
+
+  /**
+   * Set the percentile of the runtime of the last lots past which a straggler lot is hedged by a duplicate run on an idle worker
+   *
+   * @param hedgePercentile the percentile of the runtime of the last lots, between 0 and 100, or 0 to disable the hedging
+   * @throws BackendException if the percentile is invalid
+   */
+  public void setHedgePercentile(final String hedgePercentile) throws BackendException
+  {
+    if (StringUtils.isBlank(hedgePercentile))
+    {
+      return;
+    }
+
+    try
+    {
+      this.hedgePercentile = Double.parseDouble(hedgePercentile);
+
+      if (this.hedgePercentile < 0 || this.hedgePercentile > 100)
+      {
+        throw new BackendException("host.iris.hedge.percentile is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.hedge.percentile is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Configure if the number of concurrent runs of the Iris.exe adapts to the throughput and the load of the host
+   *
+   * @param adaptive the number of concurrent runs of the Iris.exe adapts to the throughput and the load of the host
+   */
+  public void setLimiter(final String adaptive)
+  {
+    limiter.setAdaptive(adaptive);
+  }
+
+  /**
+   * Set the maximum load average of the host per processor before the number of concurrent runs of the Iris.exe is decreased
+   *
+   * @param maxLoad the maximum load average of the host per processor, or 0 to ignore the load of the host
+   * @throws BackendException if the maximum load is invalid
+   */
+  public void setLimiterLoad(final String maxLoad) throws BackendException
+  {
+    limiter.setMaxLoad(maxLoad);
+  }
+
+  /**
+   * Set the number of retries of a lot failed by a transient error of the Iris.exe, before the lot is quarantined
+   *
+   * @param retryAttempts the number of retries of a lot failed by a transient error
+   * @throws BackendException if the number of retries is invalid
+   */
+  public void setRetryAttempts(final String retryAttempts) throws BackendException
+  {
+    if (StringUtils.isBlank(retryAttempts))
+    {
+      return;
+    }
+
+    try
+    {
+      this.retryAttempts = Integer.parseInt(retryAttempts);
+
+      if (this.retryAttempts < 0)
+      {
+        throw new BackendException("host.iris.retry.attempts is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.retry.attempts is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Set the delay before the first retry of a lot failed by a transient error, in milliseconds
+   *
+   * @param retryBackoff the delay before the first retry of a lot failed by a transient error, in milliseconds
+   * @throws BackendException if the delay is invalid
+   */
+  public void setRetryBackoff(final String retryBackoff) throws BackendException
+  {
+    if (StringUtils.isBlank(retryBackoff))
+    {
+      return;
+    }
+
+    try
+    {
+      this.retryBackoff = Long.parseLong(retryBackoff);
+
+      if (this.retryBackoff < 1l)
+      {
+        throw new BackendException("host.iris.retry.backoff is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.retry.backoff is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Set the timeout waiting for Iris response, in seconds
+   *
+   * @param timeout timeout waiting for Iris response, in seconds
+   * @throws BackendException
+   */
+  public void setTimeout(final String timeout) throws BackendException
+  {
+    if (StringUtils.isBlank(timeout))
+    {
+      throw new BackendException("host.iris.timeout is null or empty");
+    }
+
+    try
+    {
+      this.timeout = Long.parseLong(timeout);
+
+      if (this.timeout < 1l)
+      {
+        throw new BackendException("host.iris.timeout is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.timeout is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Set the runtime of the Iris.exe per certificate assumed before the first lot is coded, in milliseconds
+   *
+   * @param certificateTime the runtime of the Iris.exe per certificate, in milliseconds
+   * @throws BackendException if the runtime is invalid
+   */
+  public void setTimeoutCertificate(final String certificateTime) throws BackendException
+  {
+    pipeline.setCertificateTime(certificateTime);
+  }
+
+  /**
+   * Set the multiple of the runtime estimated by the size of the lot waited for Iris.exe response
+   *
+   * @param timeoutFactor the multiple of the runtime estimated by the size of the lot
+   * @throws BackendException if the multiple is invalid
+   */
+  public void setTimeoutFactor(final String timeoutFactor) throws BackendException
+  {
+    if (StringUtils.isBlank(timeoutFactor))
+    {
+      return;
+    }
+
+    try
+    {
+      this.timeoutFactor = Double.parseDouble(timeoutFactor);
+
+      if (this.timeoutFactor < 1)
+      {
+        throw new BackendException("host.iris.timeout.factor is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.timeout.factor is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Configure if the IRIS's executable runs on wine
+   *
+   * @param wine the IRIS's executable runs on wine
+   */
+  public void setWine(final String wine)
+  {
+    this.wine = "true".equals(wine);
+  }
+
+  /**
+   * Set the number of workers, each one running its own Iris.exe
+   *
+   * @param workers the number of workers, each one running its own Iris.exe
+   * @throws BackendException if the number of workers is invalid
+   */
+  public void setWorkers(final String workers) throws BackendException
+  {
+    if (StringUtils.isBlank(workers))
+    {
+      this.workers = 1;
+
+      return;
+    }
+
+    try
+    {
+      this.workers = Integer.parseInt(workers);
+
+      if (this.workers < 1)
+      {
+        throw new BackendException("host.iris.workers is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.workers is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Set the directory of the execution slots of the workers
+   *
+   * @param workspace the directory of the execution slots of the workers
+   * @throws BackendException encapsulation of the exception {@link java.lang.SecurityException}
+   */
+  public void setWorkspace(final String workspace) throws BackendException
+  {
+    if (StringUtils.isBlank(workspace))
+    {
+      this.workspace = null;
+
+      return;
+    }
+
+    final var directory = new File(workspace);
+
+    try
+    {
+      if (!directory.isDirectory())
+      {
+        throw new BackendException("Directory in host.iris.workspace not found");
+      }
+
+      if (!directory.canWrite())
+      {
+        throw new BackendException("Directory in host.iris.workspace without permission of writing");
+      }
+    }
+    catch (final SecurityException securityException)
+    {
+      throw new BackendException("host.iris.workspace is invalid", securityException);
+    }
+
+    this.workspace = directory;
+  }
+
+  /**
+   * Raise the signal of new lots in the manager table, waking the dispatcher
+   */
+  public void signal()
+  {
+    synchronized (signal)
+    {
+      signals = signals + 1;
+
+      signal.notifyAll();
+    }
+  }
+
+  /**
+   * Split the certificates in two halves and code each half again, splitting the failed halves until a single certificate,
+   * merging back the results of the halves in the lot
+   *
+   * @param worker the worker
+   * @param manager the manager of the lot
+   * @param keys the keys of the certificates to be split
+   * @param faults the keys of the certificates isolated as the cause of the failure
+   * @throws BackendException if a database access error occurs, or a half fails by other cause
+   * @throws IOException if the Iris.exe can not be launched
+   * @throws InterruptedException if the engine is stopped while waiting
+   * @throws TimeoutException if the Iris.exe does not respond in the timeout
+   */
+  private void split(final WorkerEngine worker, final Manager manager, final List<String> keys, final List<String> faults) throws BackendException, IOException, InterruptedException, TimeoutException
+  {
+    final var middle = keys.size() / 2;
+
+    for (List<String> certificates : List.of(keys.subList(0, middle), keys.subList(middle, keys.size())))
+    {
+      final var half = datasource.splitLot(manager, certificates);
+
+      try
+      {
+        final var exitValue = execute(worker, preSynchronized(half), half.getCertificates(), null);
+
+        if (exitValue != 0)
+        {
+          if (!isCertificateFailure(exitValue))
+          {
+            throw irisMessageError(exitValue);
+          }
+
+          if (certificates.size() > 1)
+          {
+            split(worker, half, certificates, faults);
+          }
+          else
+          {
+            faults.add(certificates.get(0));
+          }
+        }
+      }
+      finally
+      {
+        datasource.mergeLot(manager, half);
+      }
+    }
+  }
+
+  /**
+   * Run the pre-processing stage on the lot claimed by the dispatcher, handing it to the workers
+   *
+   * @param manager the manager of the lot
+   */
+  private void stage(final Manager manager)
+  {
+    try
+    {
+      if (manager.getLotType() == LotType.UNIQUE && batch.isEnabled() && !collect(manager))
+      {
+        idle.release();
+
+        return;
+      }
+
+      final var start = System.nanoTime();
+
+      final var lotName = preSynchronized(manager);
+
+      pipeline.staged(System.nanoTime() - start);
+
+      lots.put(new Lot(manager, lotName));
+    }
+    catch (final InterruptedException interruptedException)
+    {
+      idle.release();
+
+      Thread.currentThread().interrupt();
+    }
+    catch (final Exception exceptions)
+    {
+      quarantine(manager, exceptions);
+    }
+  }
+
+  /**
+   * Start the workers, the fast lane, the stages of the pipeline, the dispatcher and, if the host database notifies new lots, the listener
+   */
+  public synchronized void start()
+  {
+    if (running)
+    {
+      return;
+    }
+
+    running = true;
+
+    idle = new Semaphore(workers * getDepth());
+
+    lots = new ArrayBlockingQueue<>(workers);
+
+    waiting = new AtomicInteger();
+
+    runs = new ConcurrentHashMap<>();
+
+    cancelled = ConcurrentHashMap.newKeySet();
+
+    stager = newStage("iris-stager", workers);
+
+    drainer = newStage("iris-drainer", workers);
+
+    retrier = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "iris-retrier"));
+
+    pipeline.start(workers);
+
+    limiter.start(workers);
+
+    gobbler = new StreamGobblerEngine();
+
+    gobbler.start();
+
+    pool = new ArrayList<>(workers);
+
+    for (var index = 0; index < workers; index++)
+    {
+      final var worker = new WorkerEngine(this, "worker" + index, workspace, wine, false);
+
+      pool.add(worker);
+
+      worker.start();
+    }
+
+    if (fastLane)
+    {
+      lane = new WorkerEngine(this, "fastlane", workspace, wine, true);
+
+      lane.start();
+    }
+
+    try
+    {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(batch, getBatchName());
+
+      ManagementFactory.getPlatformMBeanServer().registerMBean(pipeline, getPipelineName());
+
+      ManagementFactory.getPlatformMBeanServer().registerMBean(limiter, getLimiterName());
+    }
+    catch (final JMException exception)
+    {
+      logger.log(Level.WARNING, exception.getMessage(), exception);
+    }
+
+    if (isPipelined())
+    {
+      dispatcher = new Thread(this::dispatch, "iris-dispatcher");
+
+      dispatcher.start();
+    }
+
+    if (datasource.isNotifiable())
+    {
+      listener = new Thread(this::listen, "iris-listener");
+
+      listener.setDaemon(true);
+
+      listener.start();
+    }
+  }
+
+  /**
+   * Stop the workers, the fast lane, the stages of the pipeline, the dispatcher and the listener
+   */
+  public synchronized void stop()
+  {
+    running = false;
+
+    if (listener != null)
+    {
+      listener.interrupt();
+    }
+
+    if (dispatcher != null)
+    {
+      dispatcher.interrupt();
+    }
+
+    if (stager != null)
+    {
+      stager.shutdownNow();
+    }
+
+    if (retrier != null)
+    {
+      retrier.shutdownNow();
+    }
+
+    if (pool != null)
+    {
+      for (WorkerEngine worker : pool)
+      {
+        worker.interrupt();
+      }
+    }
+
+    if (lane != null)
+    {
+      lane.interrupt();
+    }
+
+    if (drainer != null)
+    {
+      drainer.shutdown();
+    }
+
+    if (gobbler != null)
+    {
+      gobbler.interrupt();
+    }
+
+    try
+    {
+      if (ManagementFactory.getPlatformMBeanServer().isRegistered(getBatchName()))
+      {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(getBatchName());
+      }
+
+      if (ManagementFactory.getPlatformMBeanServer().isRegistered(getPipelineName()))
+      {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(getPipelineName());
+      }
+
+      if (ManagementFactory.getPlatformMBeanServer().isRegistered(getLimiterName()))
+      {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(getLimiterName());
+      }
+    }
+    catch (final JMException exception)
+    {
+      logger.log(Level.WARNING, exception.getMessage(), exception);
+    }
+  }
+
+  /**
+   * Register a lot submitted to the manager table, raising the signal of new lots
+   *
+   * @param manager the manager of the lot
+   */
+  public void submitted(final Manager manager)
+  {
+    if (manager.getLotType() == LotType.UNIQUE)
+    {
+      batch.arrived();
+    }
+
+    signal();
+  }
+
+  /**
+   * Code by the Iris.exe the lots staged by the pre-processing stage, within the limit of concurrent runs, until the engine is stopped,
+   * or run the lots claimed by the worker if the lots do not flow through the pipeline
+   *
+   * @param worker the worker
+   */
+  void work(final WorkerEngine worker)
+  {
+    if (!isPipelined())
+    {
+      serve(worker);
+
+      return;
+    }
+
+    while (running)
+    {
+      final Lot lot;
+
+      waiting.incrementAndGet();
+
+      try
+      {
+        lot = lots.take();
+      }
+      catch (final InterruptedException interruptedException)
+      {
+        Thread.currentThread().interrupt();
+
+        return;
+      }
+      finally
+      {
+        waiting.decrementAndGet();
+      }
+
+      // The permit is taken only by a worker holding a lot, so the idle workers do not count as runs of the Iris.exe
+
+      try
+      {
+        limiter.acquire();
+      }
+      catch (final InterruptedException interruptedException)
+      {
+        // A hedge takes no room in the pipeline, only the lot staged by the dispatcher gives its room back
+
+        if (lot.getHedge() == null)
+        {
+          idle.release();
+        }
+
+        Thread.currentThread().interrupt();
+
+        return;
+      }
+
+      try
+      {
+        if (lot.getHedge() != null)
+        {
+          hedge(worker, lot.getHedge());
+        }
+        else
+        {
+          code(worker, lot);
+        }
+      }
+      catch (final InterruptedException interruptedException)
+      {
+        Thread.currentThread().interrupt();
+
+        return;
+      }
+      finally
+      {
+        limiter.release();
+      }
+    }
   }
 }
@@ -0,0 +1,149 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.ybadoo.iris.entity.Manager;
+
+/**
+ * Race between the run of the Iris.exe on a straggler lot and its hedged duplicate, run by another worker on a copy of the lot,
+ * settled by the first run to finish
+ */
+class Hedge
+{
+  /**
+   * The copy of the lot coded by the duplicate, completed when the duplicate wins the race
+   */
+  private final CompletableFuture<Manager> coded = new CompletableFuture<>();
+
+  /**
+   * The manager of the lot
+   */
+  private final Manager manager;
+
+  /**
+   * The process of the duplicate, or null if not launched yet
+   */
+  private Process process;
+
+  /**
+   * The race is settled
+   */
+  private boolean settled;
+
+  /**
+   * Constructor
+   *
+   * @param manager the manager of the lot
+   */
+  Hedge(final Manager manager)
+  {
+    this.manager = manager;
+  }
+
+  /**
+   * Attach the process of the duplicate to the race, so it is killed when the original run wins
+   *
+   * @param process the process of the duplicate
+   * @return true if the process was attached, false if the race is already settled
+   */
+  synchronized boolean attach(final Process process)
+  {
+    if (settled)
+    {
+      return false;
+    }
+
+    this.process = process;
+
+    return true;
+  }
+
+  /**
+   * Settle the race in favour of the duplicate, which coded the copy of the lot
+   *
+   * @param copy the copy of the lot coded by the duplicate
+   * @return true if the duplicate won the race, false if the race is already settled
+   */
+  synchronized boolean coded(final Manager copy)
+  {
+    if (settled)
+    {
+      return false;
+    }
+
+    settled = true;
+
+    coded.complete(copy);
+
+    return true;
+  }
+
+  /**
+   * Get the copy of the lot coded by the duplicate, completed when the duplicate wins the race
+   *
+   * @return the copy of the lot coded by the duplicate
+   */
+  CompletableFuture<Manager> getCoded()
+  {
+    return coded;
+  }
+
+  /**
+   * Get the manager of the lot
+   *
+   * @return the manager of the lot
+   */
+  Manager getManager()
+  {
+    return manager;
+  }
+
+  /**
+   * Tests whether the race is settled
+   *
+   * @return true if the race is settled, false otherwise
+   */
+  synchronized boolean isSettled()
+  {
+    return settled;
+  }
+
+  /**
+   * Settle the race in favour of the original run, killing the duplicate
+   *
+   * @return true if the original run won the race, false if the duplicate won it before
+   */
+  synchronized boolean settle()
+  {
+    if (settled)
+    {
+      return !coded.isDone();
+    }
+
+    settled = true;
+
+    if (process != null)
+    {
+      Engine.kill(process);
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,370 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.ybadoo.iris.exception.BackendException;
+
+/**
+ * Adaptive limit of the concurrent runs of the Iris.exe (additive increase, multiplicative decrease): the limit is raised by one
+ * while the workers are saturated and the host has spare load, and cut when the load of the host exceeds the maximum or a raise
+ * lowered the throughput of certificates, as too many Wine processes thrash the memory and slow every lot
+ */
+public class LimiterEngine implements LimiterEngineMXBean, Serializable
+{
+  /**
+   * Factor of the multiplicative decrease of the limit
+   */
+  private static final double BACKOFF = 0.75;
+
+  /**
+   * Fraction of the throughput of the previous window lost after a raise before the raise is undone
+   */
+  private static final double TOLERANCE = 0.1;
+
+  /**
+   * Version number of serializable class
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Minimum duration of a window of observation, in nanoseconds
+   */
+  private static final long WINDOW = TimeUnit.SECONDS.toNanos(10);
+
+  /**
+   * The limit adapts to the throughput and the load of the host
+   */
+  private boolean adaptive = true;
+
+  /**
+   * Number of certificates coded in the current window
+   */
+  private long certificates;
+
+  /**
+   * Number of decreases of the limit
+   */
+  private long decreases;
+
+  /**
+   * Number of increases of the limit
+   */
+  private long increases;
+
+  /**
+   * Last decision on the limit
+   */
+  private String lastDecision = "hold";
+
+  /**
+   * Number of concurrent runs of the Iris.exe allowed
+   */
+  private int limit = 1;
+
+  /**
+   * Load average of the host per processor observed in the last window, or a negative value if not available
+   */
+  private double loadAverage = -1;
+
+  /**
+   * Number of lots coded in the current window
+   */
+  private long lots;
+
+  /**
+   * Maximum load average of the host per processor before the limit is decreased, or 0 to ignore the load of the host
+   */
+  private double maxLoad = 1;
+
+  /**
+   * Number of workers, the maximum limit
+   */
+  private int maxLimit = 1;
+
+  /**
+   * Number of runs of the Iris.exe in progress
+   */
+  private int running;
+
+  /**
+   * The runs of the Iris.exe reached the limit in the current window
+   */
+  private boolean saturated;
+
+  /**
+   * Number of certificates coded per second in the last window
+   */
+  private double throughput;
+
+  /**
+   * Instant the current window started, in nanoseconds
+   */
+  private long windowStart;
+
+  /**
+   * Wait for room under the limit to run the Iris.exe
+   *
+   * @throws InterruptedException if the engine is stopped while waiting
+   */
+  synchronized void acquire() throws InterruptedException
+  {
+    while (running >= limit)
+    {
+      wait();
+    }
+
+    running = running + 1;
+
+    saturated = saturated || running >= limit;
+  }
+
+  /**
+   * Adapt the limit at the end of a window, from the throughput of the window and the load of the host
+   *
+   * @param now the instant the window ends, in nanoseconds
+   */
+  private void adapt(final long now)
+  {
+    final var previous = throughput;
+
+    throughput = certificates * (double) TimeUnit.SECONDS.toNanos(1) / (now - windowStart);
+
+    final var system = ManagementFactory.getOperatingSystemMXBean();
+
+    loadAverage = system.getSystemLoadAverage() < 0 ? -1 : system.getSystemLoadAverage() / system.getAvailableProcessors();
+
+    final var overloaded = maxLoad > 0 && loadAverage > maxLoad;
+
+    if (overloaded && limit > 1)
+    {
+      decrease("decrease by load");
+    }
+    else if ("increase".equals(lastDecision) && throughput < previous * (1 - TOLERANCE) && limit > 1)
+    {
+      decrease("decrease by throughput");
+    }
+    else if (saturated && !overloaded && limit < maxLimit)
+    {
+      limit = limit + 1;
+
+      increases = increases + 1;
+
+      lastDecision = "increase";
+
+      notifyAll();
+    }
+    else
+    {
+      lastDecision = "hold";
+    }
+
+    certificates = 0;
+
+    lots = 0;
+
+    saturated = running >= limit;
+
+    windowStart = now;
+  }
+
+  /**
+   * Register a lot coded by the Iris.exe, adapting the limit at the end of the window
+   *
+   * @param certificates the number of certificates of the lot
+   */
+  synchronized void coded(final int certificates)
+  {
+    this.certificates = this.certificates + certificates;
+
+    lots = lots + 1;
+
+    final var now = System.nanoTime();
+
+    // A window is long enough to smooth the lots of different sizes, and sees at least one lot per run allowed
+
+    if (adaptive && now - windowStart >= WINDOW && lots >= limit)
+    {
+      adapt(now);
+    }
+  }
+
+  /**
+   * Decrease the limit multiplicatively, at least by one
+   *
+   * @param decision the decision on the limit
+   */
+  private void decrease(final String decision)
+  {
+    limit = Math.max(1, Math.min(limit - 1, (int) (limit * BACKOFF)));
+
+    decreases = decreases + 1;
+
+    lastDecision = decision;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.LimiterEngineMXBean#getDecreases()
+   */
+  @Override
+  public synchronized long getDecreases()
+  {
+    return decreases;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.LimiterEngineMXBean#getIncreases()
+   */
+  @Override
+  public synchronized long getIncreases()
+  {
+    return increases;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.LimiterEngineMXBean#getLastDecision()
+   */
+  @Override
+  public synchronized String getLastDecision()
+  {
+    return lastDecision;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.LimiterEngineMXBean#getLimit()
+   */
+  @Override
+  public synchronized int getLimit()
+  {
+    return limit;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.LimiterEngineMXBean#getLoadAverage()
+   */
+  @Override
+  public synchronized double getLoadAverage()
+  {
+    return loadAverage;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.LimiterEngineMXBean#getMaxLoad()
+   */
+  @Override
+  public double getMaxLoad()
+  {
+    return maxLoad;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.LimiterEngineMXBean#getRunning()
+   */
+  @Override
+  public synchronized int getRunning()
+  {
+    return running;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.LimiterEngineMXBean#getThroughput()
+   */
+  @Override
+  public synchronized double getThroughput()
+  {
+    return throughput;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.LimiterEngineMXBean#isAdaptive()
+   */
+  @Override
+  public boolean isAdaptive()
+  {
+    return adaptive;
+  }
+
+  /**
+   * Release the room of a run of the Iris.exe
+   */
+  synchronized void release()
+  {
+    running = running - 1;
+
+    notifyAll();
+  }
+
+  /**
+   * Configure if the limit adapts to the throughput and the load of the host
+   *
+   * @param adaptive the limit adapts to the throughput and the load of the host
+   */
+  public void setAdaptive(final String adaptive)
+  {
+    this.adaptive = !"false".equals(adaptive);
+  }
+
+  /**
+   * Set the maximum load average of the host per processor before the limit is decreased
+   *
+   * @param maxLoad the maximum load average of the host per processor, or 0 to ignore the load of the host
+   * @throws BackendException if the maximum load is invalid
+   */
+  public void setMaxLoad(final String maxLoad) throws BackendException
+  {
+    if (StringUtils.isBlank(maxLoad))
+    {
+      return;
+    }
+
+    try
+    {
+      this.maxLoad = Double.parseDouble(maxLoad);
+
+      if (this.maxLoad < 0)
+      {
+        throw new BackendException("host.iris.limiter.load is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.limiter.load is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Register the start of the engine, starting the limit at the number of processors of the host, up to the number of workers
+   *
+   * @param workers the number of workers, the maximum limit
+   */
+  synchronized void start(final int workers)
+  {
+    maxLimit = workers;
+
+    limit = adaptive ? Math.min(workers, Runtime.getRuntime().availableProcessors()) : workers;
+
+    running = 0;
+
+    windowStart = System.nanoTime();
+  }
+}
@@ -0,0 +1,87 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+/**
+ * Metrics of the adaptive limit of the concurrent runs of the Iris.exe, exposed by JMX
+ */
+public interface LimiterEngineMXBean
+{
+  /**
+   * Get the number of decreases of the limit
+   *
+   * @return the number of decreases of the limit
+   */
+  long getDecreases();
+
+  /**
+   * Get the number of increases of the limit
+   *
+   * @return the number of increases of the limit
+   */
+  long getIncreases();
+
+  /**
+   * Get the last decision on the limit: increase, decrease by load, decrease by throughput or hold
+   *
+   * @return the last decision on the limit
+   */
+  String getLastDecision();
+
+  /**
+   * Get the number of concurrent runs of the Iris.exe allowed
+   *
+   * @return the number of concurrent runs of the Iris.exe allowed
+   */
+  int getLimit();
+
+  /**
+   * Get the load average of the host per processor observed in the last window, or a negative value if not available
+   *
+   * @return the load average of the host per processor observed in the last window
+   */
+  double getLoadAverage();
+
+  /**
+   * Get the maximum load average of the host per processor before the limit is decreased
+   *
+   * @return the maximum load average of the host per processor
+   */
+  double getMaxLoad();
+
+  /**
+   * Get the number of runs of the Iris.exe in progress
+   *
+   * @return the number of runs of the Iris.exe in progress
+   */
+  int getRunning();
+
+  /**
+   * Get the number of certificates coded per second in the last window
+   *
+   * @return the number of certificates coded per second in the last window
+   */
+  double getThroughput();
+
+  /**
+   * Tests whether the limit adapts to the throughput and the load of the host
+   *
+   * @return true if the limit adapts, false if it is the number of workers
+   */
+  boolean isAdaptive();
+}
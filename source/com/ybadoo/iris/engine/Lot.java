@@ -0,0 +1,127 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+import com.ybadoo.iris.entity.Manager;
+
+/**
+ * Lot staged by the pre-processing stage, ready to be coded by the Iris.exe
+ */
+class Lot
+{
+  /**
+   * The number of times the Iris.exe failed with a transient error on the lot
+   */
+  private int attempts;
+
+  /**
+   * The race of the lot run by the worker as a hedged duplicate, or null if the lot is run as usual
+   */
+  private final Hedge hedge;
+
+  /**
+   * The manager of the lot
+   */
+  private final Manager manager;
+
+  /**
+   * The name of the lot passed to the Iris.exe, or null if the Iris.exe takes no lot name
+   */
+  private final String name;
+
+  /**
+   * Constructor
+   *
+   * @param manager the manager of the lot
+   * @param name the name of the lot passed to the Iris.exe
+   */
+  Lot(final Manager manager, final String name)
+  {
+    this.manager = manager;
+
+    this.name = name;
+
+    this.hedge = null;
+  }
+
+  /**
+   * Constructor of a hedged duplicate of a straggler lot
+   *
+   * @param hedge the race of the lot
+   */
+  Lot(final Hedge hedge)
+  {
+    this.manager = hedge.getManager();
+
+    this.name = null;
+
+    this.hedge = hedge;
+  }
+
+  /**
+   * Get the number of times the Iris.exe failed with a transient error on the lot
+   *
+   * @return the number of times the Iris.exe failed with a transient error on the lot
+   */
+  int getAttempts()
+  {
+    return attempts;
+  }
+
+  /**
+   * Get the race of the lot run by the worker as a hedged duplicate
+   *
+   * @return the race of the lot, or null if the lot is run as usual
+   */
+  Hedge getHedge()
+  {
+    return hedge;
+  }
+
+  /**
+   * Get the manager of the lot
+   *
+   * @return the manager of the lot
+   */
+  Manager getManager()
+  {
+    return manager;
+  }
+
+  /**
+   * Get the name of the lot passed to the Iris.exe
+   *
+   * @return the name of the lot passed to the Iris.exe, or null if the Iris.exe takes no lot name
+   */
+  String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Register a transient failure of the Iris.exe on the lot
+   *
+   * @return the number of times the Iris.exe failed with a transient error on the lot
+   */
+  int retried()
+  {
+    attempts = attempts + 1;
+
+    return attempts;
+  }
+}
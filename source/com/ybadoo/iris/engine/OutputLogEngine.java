@@ -0,0 +1,102 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous log of the output of the Iris.exe, buffered in a bounded ring so the runs never wait for the log I/O,
+ * dropping the lines when the ring is full
+ */
+class OutputLogEngine extends Thread
+{
+  /**
+   * Number of lines buffered in the ring
+   */
+  private static final int CAPACITY = 4096;
+
+  /**
+   * Log of the output lines of the Iris.exe
+   */
+  private static final Logger logger = Logger.getLogger(OutputLogEngine.class.getName());
+
+  /**
+   * Number of lines dropped since the last line logged
+   */
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * Ring of the lines waiting to be logged
+   */
+  private final BlockingQueue<String> ring = new ArrayBlockingQueue<>(CAPACITY);
+
+  /**
+   * Constructor
+   */
+  OutputLogEngine()
+  {
+    super("iris-output-log");
+
+    setDaemon(true);
+  }
+
+  /**
+   * Buffer a line to be logged, dropping it if the ring is full
+   *
+   * @param line the line
+   */
+  void offer(final String line)
+  {
+    if (!ring.offer(line))
+    {
+      dropped.incrementAndGet();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Thread#run()
+   */
+  @Override
+  public void run()
+  {
+    try
+    {
+      while (!isInterrupted())
+      {
+        final var line = ring.take();
+
+        final var lost = dropped.getAndSet(0);
+
+        if (lost > 0)
+        {
+          logger.log(Level.WARNING, "{0} lines of the Iris output dropped", lost);
+        }
+
+        logger.log(Level.INFO, line);
+      }
+    }
+    catch (final InterruptedException interruptedException)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,464 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.ybadoo.iris.exception.BackendException;
+
+/**
+ * Timing of the pipeline of the engine: the lot N+1 is staged and the lot N-1 is drained while the Iris.exe codes the lot N
+ */
+public class PipelineEngine implements PipelineEngineMXBean, Serializable
+{
+  /**
+   * Minimum number of certificates of a lot to sample the runtime per certificate, the runtime of smaller lots is dominated by the launch of the Iris.exe
+   */
+  private static final int MINIMUM_SAMPLE = 10;
+
+  /**
+   * Number of the last lots sampled to compute the percentiles of the runtime
+   */
+  private static final int SAMPLES = 100;
+
+  /**
+   * Minimum number of lots sampled before the percentiles of the runtime are trusted
+   */
+  private static final int MINIMUM_SAMPLES = 20;
+
+  /**
+   * Weight of the last lot in the average runtime per certificate
+   */
+  private static final double SMOOTHING = 0.2;
+
+  /**
+   * Version number of serializable class
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Number of lots bisected to isolate the certificates causing a failure
+   */
+  private long bisected;
+
+  /**
+   * Number of lots cancelled by the user while running the Iris.exe
+   */
+  private long cancelled;
+
+  /**
+   * Average runtime of the Iris.exe per certificate, in nanoseconds
+   */
+  private double certificateTime = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /**
+   * Number of lots coded by the Iris.exe
+   */
+  private long coded;
+
+  /**
+   * Time of the Iris.exe stage, in nanoseconds
+   */
+  private long coding;
+
+  /**
+   * Number of lots drained by the post-processing stage
+   */
+  private long drained;
+
+  /**
+   * Time of the post-processing stage, in nanoseconds
+   */
+  private long draining;
+
+  /**
+   * Number of certificates isolated as the cause of a failure
+   */
+  private long faulted;
+
+  /**
+   * Number of lots hedged by a duplicate run of the Iris.exe
+   */
+  private long hedged;
+
+  /**
+   * Number of lots coded by the hedged duplicate before the original run
+   */
+  private long hedgeWins;
+
+  /**
+   * Number of lots quarantined after a failure
+   */
+  private long quarantined;
+
+  /**
+   * Number of retries of the Iris.exe after a transient failure
+   */
+  private long retried;
+
+  /**
+   * Ring of the runtimes of the last lots sampled, as a multiple of the runtime estimated by the size of the lot
+   */
+  private final double[] samples = new double[SAMPLES];
+
+  /**
+   * Number of lots sampled
+   */
+  private long sampled;
+
+  /**
+   * Number of lots staged by the pre-processing stage
+   */
+  private long staged;
+
+  /**
+   * Time of the pre-processing stage, in nanoseconds
+   */
+  private long staging;
+
+  /**
+   * Instant the engine started, in nanoseconds
+   */
+  private long started;
+
+  /**
+   * Number of workers running the Iris.exe
+   */
+  private int workers;
+
+  /**
+   * Register a lot bisected to isolate the certificates causing a failure
+   *
+   * @param certificates the number of certificates isolated as the cause of the failure
+   */
+  synchronized void bisected(final int certificates)
+  {
+    bisected = bisected + 1;
+
+    faulted = faulted + certificates;
+  }
+
+  /**
+   * Register a lot cancelled by the user while running the Iris.exe
+   */
+  synchronized void cancelled()
+  {
+    cancelled = cancelled + 1;
+  }
+
+  /**
+   * Register a lot coded by the Iris.exe
+   *
+   * @param nanos the time of the Iris.exe stage, in nanoseconds
+   */
+  synchronized void coded(final long nanos)
+  {
+    coded = coded + 1;
+
+    coding = coding + nanos;
+  }
+
+  /**
+   * Register a lot drained by the post-processing stage
+   *
+   * @param nanos the time of the post-processing stage, in nanoseconds
+   */
+  synchronized void drained(final long nanos)
+  {
+    drained = drained + 1;
+
+    draining = draining + nanos;
+  }
+
+  /**
+   * Estimate the runtime of the Iris.exe on a lot
+   *
+   * @param certificates the number of certificates of the lot
+   * @return the runtime of the Iris.exe on the lot, in nanoseconds
+   */
+  synchronized long estimate(final int certificates)
+  {
+    return (long) (certificateTime * certificates);
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getBisectedLots()
+   */
+  @Override
+  public synchronized long getBisectedLots()
+  {
+    return bisected;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getCancelledLots()
+   */
+  @Override
+  public synchronized long getCancelledLots()
+  {
+    return cancelled;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getCertificateTime()
+   */
+  @Override
+  public synchronized double getCertificateTime()
+  {
+    return certificateTime / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getCodedLots()
+   */
+  @Override
+  public synchronized long getCodedLots()
+  {
+    return coded;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getCodingTime()
+   */
+  @Override
+  public synchronized double getCodingTime()
+  {
+    return coded == 0 ? 0 : (double) coding / coded / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getDrainedLots()
+   */
+  @Override
+  public synchronized long getDrainedLots()
+  {
+    return drained;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getDrainingTime()
+   */
+  @Override
+  public synchronized double getDrainingTime()
+  {
+    return drained == 0 ? 0 : (double) draining / drained / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getFaultedCertificates()
+   */
+  @Override
+  public synchronized long getFaultedCertificates()
+  {
+    return faulted;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getHedgedLots()
+   */
+  @Override
+  public synchronized long getHedgedLots()
+  {
+    return hedged;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getHedgeWins()
+   */
+  @Override
+  public synchronized long getHedgeWins()
+  {
+    return hedgeWins;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getQuarantinedLots()
+   */
+  @Override
+  public synchronized long getQuarantinedLots()
+  {
+    return quarantined;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getRetries()
+   */
+  @Override
+  public synchronized long getRetries()
+  {
+    return retried;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getStagedLots()
+   */
+  @Override
+  public synchronized long getStagedLots()
+  {
+    return staged;
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getStagingTime()
+   */
+  @Override
+  public synchronized double getStagingTime()
+  {
+    return staged == 0 ? 0 : (double) staging / staged / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /* (non-Javadoc)
+   * @see com.ybadoo.iris.engine.PipelineEngineMXBean#getUtilization()
+   */
+  @Override
+  public synchronized double getUtilization()
+  {
+    final var elapsed = System.nanoTime() - started;
+
+    return started == 0 || elapsed <= 0 ? 0 : Math.min(1, (double) coding / elapsed / workers);
+  }
+
+  /**
+   * Register a lot hedged by a duplicate run of the Iris.exe
+   */
+  synchronized void hedged()
+  {
+    hedged = hedged + 1;
+  }
+
+  /**
+   * Register a lot coded by the hedged duplicate before the original run
+   */
+  synchronized void hedgeWon()
+  {
+    hedgeWins = hedgeWins + 1;
+  }
+
+  /**
+   * Get the runtime of the Iris.exe on a lot not exceeded by the given percentile of the last lots sampled
+   *
+   * @param certificates the number of certificates of the lot
+   * @param percentile the percentile of the last lots sampled, between 0 and 100
+   * @return the runtime of the Iris.exe on the lot, in nanoseconds, or -1 if the lot is too small or there are too few lots sampled
+   */
+  synchronized long percentile(final int certificates, final double percentile)
+  {
+    if (certificates < MINIMUM_SAMPLE || sampled < MINIMUM_SAMPLES)
+    {
+      return -1;
+    }
+
+    final var sorted = Arrays.copyOf(samples, (int) Math.min(sampled, SAMPLES));
+
+    Arrays.sort(sorted);
+
+    final var index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+
+    return (long) (sorted[Math.max(0, Math.min(index, sorted.length - 1))] * estimate(certificates));
+  }
+
+  /**
+   * Register a lot quarantined after a failure
+   */
+  synchronized void quarantined()
+  {
+    quarantined = quarantined + 1;
+  }
+
+  /**
+   * Register a retry of the Iris.exe after a transient failure
+   */
+  synchronized void retried()
+  {
+    retried = retried + 1;
+  }
+
+  /**
+   * Set the runtime of the Iris.exe per certificate assumed before the first lot is coded, in milliseconds
+   *
+   * @param certificateTime the runtime of the Iris.exe per certificate, in milliseconds
+   * @throws BackendException if the runtime is invalid
+   */
+  public synchronized void setCertificateTime(final String certificateTime) throws BackendException
+  {
+    if (StringUtils.isBlank(certificateTime))
+    {
+      return;
+    }
+
+    try
+    {
+      this.certificateTime = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(certificateTime));
+
+      if (this.certificateTime < 0)
+      {
+        throw new BackendException("host.iris.timeout.certificate is invalid");
+      }
+    }
+    catch (final NumberFormatException numberFormatException)
+    {
+      throw new BackendException("host.iris.timeout.certificate is invalid", numberFormatException);
+    }
+  }
+
+  /**
+   * Register a lot staged by the pre-processing stage
+   *
+   * @param nanos the time of the pre-processing stage, in nanoseconds
+   */
+  synchronized void staged(final long nanos)
+  {
+    staged = staged + 1;
+
+    staging = staging + nanos;
+  }
+
+  /**
+   * Register the start of the engine
+   *
+   * @param workers the number of workers running the Iris.exe
+   */
+  synchronized void start(final int workers)
+  {
+    this.started = System.nanoTime();
+
+    this.workers = workers;
+  }
+
+  /**
+   * Register the runtime of the Iris.exe on a lot coded successfully
+   *
+   * @param nanos the runtime of the Iris.exe, in nanoseconds
+   * @param certificates the number of certificates of the lot
+   */
+  synchronized void timed(final long nanos, final int certificates)
+  {
+    if (certificates >= MINIMUM_SAMPLE)
+    {
+      samples[(int) (sampled % SAMPLES)] = nanos / (certificateTime * certificates);
+
+      sampled = sampled + 1;
+
+      certificateTime = (1 - SMOOTHING) * certificateTime + SMOOTHING * nanos / certificates;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+/**
+ * Metrics of the pipeline of the engine (pre-processing, Iris.exe and post-processing stages), exposed by JMX
+ */
+public interface PipelineEngineMXBean
+{
+  /**
+   * Get the number of lots bisected to isolate the certificates causing a failure
+   *
+   * @return the number of lots bisected to isolate the certificates causing a failure
+   */
+  long getBisectedLots();
+
+  /**
+   * Get the number of lots cancelled by the user while running the Iris.exe
+   *
+   * @return the number of lots cancelled by the user while running the Iris.exe
+   */
+  long getCancelledLots();
+
+  /**
+   * Get the average runtime of the Iris.exe per certificate, used to compute the timeout of the lots, in milliseconds
+   *
+   * @return the average runtime of the Iris.exe per certificate, in milliseconds
+   */
+  double getCertificateTime();
+
+  /**
+   * Get the number of lots coded by the Iris.exe
+   *
+   * @return the number of lots coded by the Iris.exe
+   */
+  long getCodedLots();
+
+  /**
+   * Get the average time of the Iris.exe stage, in milliseconds
+   *
+   * @return the average time of the Iris.exe stage, in milliseconds
+   */
+  double getCodingTime();
+
+  /**
+   * Get the number of lots drained by the post-processing stage
+   *
+   * @return the number of lots drained by the post-processing stage
+   */
+  long getDrainedLots();
+
+  /**
+   * Get the average time of the post-processing stage, in milliseconds
+   *
+   * @return the average time of the post-processing stage, in milliseconds
+   */
+  double getDrainingTime();
+
+  /**
+   * Get the number of certificates isolated as the cause of a failure
+   *
+   * @return the number of certificates isolated as the cause of a failure
+   */
+  long getFaultedCertificates();
+
+  /**
+   * Get the number of lots hedged by a duplicate run of the Iris.exe
+   *
+   * @return the number of lots hedged by a duplicate run of the Iris.exe
+   */
+  long getHedgedLots();
+
+  /**
+   * Get the number of lots coded by the hedged duplicate before the original run
+   *
+   * @return the number of lots coded by the hedged duplicate before the original run
+   */
+  long getHedgeWins();
+
+  /**
+   * Get the number of lots quarantined after a failure
+   *
+   * @return the number of lots quarantined after a failure
+   */
+  long getQuarantinedLots();
+
+  /**
+   * Get the number of retries of the Iris.exe after a transient failure
+   *
+   * @return the number of retries of the Iris.exe after a transient failure
+   */
+  long getRetries();
+
+  /**
+   * Get the number of lots staged by the pre-processing stage
+   *
+   * @return the number of lots staged by the pre-processing stage
+   */
+  long getStagedLots();
+
+  /**
+   * Get the average time of the pre-processing stage, in milliseconds
+   *
+   * @return the average time of the pre-processing stage, in milliseconds
+   */
+  double getStagingTime();
+
+  /**
+   * Get the fraction of the time the workers kept the Iris.exe running since the engine started
+   *
+   * @return the fraction of the time the workers kept the Iris.exe running, between 0 and 1
+   */
+  double getUtilization();
+}
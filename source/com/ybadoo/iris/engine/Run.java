@@ -0,0 +1,110 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+/**
+ * Run of the Iris.exe on a lot running alone, followed by its progress, parsed from the progress lines of its output, and killed
+ * if the user cancels the lot
+ */
+class Run
+{
+  /**
+   * The number of certificates of the run
+   */
+  private final int certificates;
+
+  /**
+   * The number of certificates coded so far
+   */
+  private volatile int coded;
+
+  /**
+   * The process of the Iris.exe, or null if not launched yet
+   */
+  private Process process;
+
+  /**
+   * Constructor
+   *
+   * @param certificates the number of certificates of the run
+   */
+  Run(final int certificates)
+  {
+    this.certificates = certificates;
+  }
+
+  /**
+   * Register a progress line of the Iris.exe, starting by the zero-padded number of certificates coded so far
+   *
+   * @param line the progress line
+   */
+  void coded(final String line)
+  {
+    var end = 0;
+
+    while (end < line.length() && end < 9 && Character.isDigit(line.charAt(end)))
+    {
+      end = end + 1;
+    }
+
+    if (end > 0)
+    {
+      coded = Math.min(certificates, Math.max(coded, Integer.parseInt(line.substring(0, end))));
+    }
+  }
+
+  /**
+   * Get the number of certificates of the run
+   *
+   * @return the number of certificates of the run
+   */
+  int getCertificates()
+  {
+    return certificates;
+  }
+
+  /**
+   * Get the number of certificates coded so far
+   *
+   * @return the number of certificates coded so far
+   */
+  int getCoded()
+  {
+    return coded;
+  }
+
+  /**
+   * Get the process of the Iris.exe
+   *
+   * @return the process of the Iris.exe, or null if not launched yet
+   */
+  Process getProcess()
+  {
+    return process;
+  }
+
+  /**
+   * Register the launch of the Iris.exe
+   *
+   * @param process the process of the Iris.exe
+   */
+  void started(final Process process)
+  {
+    this.process = process;
+  }
+}
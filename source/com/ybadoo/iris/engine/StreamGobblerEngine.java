@@ -17,43 +17,178 @@
 
 package com.ybadoo.iris.engine;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Classe responsavel pela leitura da saida da execuvso da ferramenta IRIS no terminal
+ * Pump shared by all the runs of the Iris.exe, reading the output of the processes without blocking and handing the lines,
+ * tagged with the lot, to the asynchronous log
  */
-public class StreamGobblerEngine extends Thread
+class StreamGobblerEngine extends Thread
 {
+  /**
+   * Interval between two passes over the outputs when there is nothing to read, in milliseconds
+   */
+  private static final long IDLE_INTERVAL = 50;
+
   /**
    * Log do processamento do lote na ferramenta IRIS
    */
   private static final Logger logger = Logger.getLogger(StreamGobblerEngine.class.getName());
 
   /**
-   * Fluxo de dados
+   * Buffer of the reads
+   */
+  private final byte[] buffer = new byte[8192];
+
+  /**
+   * Asynchronous log of the lines
    */
-  private final InputStream inputStream;
+  private final OutputLogEngine log = new OutputLogEngine();
 
   /**
-   * Tipo do fluxo de dados
+   * Outputs of the running processes
    */
-  private final String type;
+  private final Queue<Output> outputs = new ConcurrentLinkedQueue<>();
 
   /**
-   * Inicializar a impressao da saida da execucao do IRIS
+   * Output of a running process
+   */
+  private static class Output
+  {
+    /**
+     * Fluxo de dados
+     */
+    private final InputStream inputStream;
+
+    /**
+     * Line being read
+     */
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    /**
+     * Process that writes the output
+     */
+    private final Process process;
+
+    /**
+     * Run followed by the progress lines of the output, or null if the progress is not followed
+     */
+    private final Run run;
+
+    /**
+     * Tag of the lines, with the lot and the type of the output
+     */
+    private final String tag;
+
+    /**
+     * Constructor
+     *
+     * @param process the process that writes the output
+     * @param inputStream the output
+     * @param tag the tag of the lines
+     * @param run the run followed by the progress lines, or null if the progress is not followed
+     */
+    Output(final Process process, final InputStream inputStream, final String tag, final Run run)
+    {
+      this.process = process;
+
+      this.inputStream = inputStream;
+
+      this.run = run;
+
+      this.tag = tag;
+    }
+  }
+
+  /**
+   * Constructor
+   */
+  StreamGobblerEngine()
+  {
+    super("iris-gobbler");
+
+    setDaemon(true);
+  }
+
+  /**
+   * Read the available bytes of the output, without blocking
    *
-   * @param inputStream fluxo de dados
-   * @param type tipo do fluxo de dados
+   * @param output the output
+   * @return the number of bytes read, or -1 if the output is finished
+   * @throws IOException if an I/O error occurs
    */
-  StreamGobblerEngine(final InputStream inputStream, final String type)
+  private int drain(final Output output) throws IOException
   {
-    this.inputStream = inputStream;
+    final var available = output.inputStream.available();
+
+    if (available == 0)
+    {
+      // A process gone with nothing left to read is finished; reading until the end could block on a descendant holding the pipe
+
+      return !output.process.isAlive() && output.inputStream.available() == 0 ? -1 : 0;
+    }
 
-    this.type = type;
+    final var count = output.inputStream.read(buffer, 0, Math.min(available, buffer.length));
+
+    for (var index = 0; index < count; index++)
+    {
+      if (buffer[index] == '\n')
+      {
+        flush(output);
+      }
+      else if (buffer[index] != '\r')
+      {
+        output.line.write(buffer[index]);
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Hand the line being read to the log, the progress lines of the Iris.exe updating the progress of the run instead
+   *
+   * @param output the output
+   */
+  private void flush(final Output output)
+  {
+    if (output.line.size() > 0)
+    {
+      final var line = output.line.toString(Charset.defaultCharset());
+
+      if (!line.startsWith("0"))
+      {
+        log.offer(output.tag + " > " + line);
+      }
+      else if (output.run != null)
+      {
+        output.run.coded(line);
+      }
+
+      output.line.reset();
+    }
+  }
+
+  /**
+   * Register the outputs of a run of the Iris.exe
+   *
+   * @param process the process of the Iris.exe
+   * @param lotName the name of the lot
+   * @param run the run followed by the progress lines, or null if the progress is not followed
+   */
+  void register(final Process process, final String lotName, final Run run)
+  {
+    outputs.add(new Output(process, process.getErrorStream(), lotName + " ERROR", null));
+
+    outputs.add(new Output(process, process.getInputStream(), lotName + " OUTPUT", run));
   }
 
   /* (non-Javadoc)
@@ -62,21 +197,56 @@ public class StreamGobblerEngine extends Thread
   @Override
   public void run()
   {
-    try (final var bufferedReader = new BufferedReader(new InputStreamReader(inputStream)))
-    {
-      String line = null;
+    log.start();
 
-      while ((line = bufferedReader.readLine()) != null)
+    try
+    {
+      while (!isInterrupted())
       {
-        if (!line.startsWith("0"))
+        var idle = true;
+
+        for (final var iterator = outputs.iterator(); iterator.hasNext();)
+        {
+          final var output = iterator.next();
+
+          try
+          {
+            final var count = drain(output);
+
+            if (count < 0)
+            {
+              flush(output);
+
+              output.inputStream.close();
+
+              iterator.remove();
+            }
+            else if (count > 0)
+            {
+              idle = false;
+            }
+          }
+          catch (final IOException exception)
+          {
+            logger.log(Level.WARNING, exception.getMessage(), exception);
+
+            iterator.remove();
+          }
+        }
+
+        if (idle)
         {
-          logger.log(Level.INFO, "{0} > {1}", new String[] {type, line});
+          TimeUnit.MILLISECONDS.sleep(IDLE_INTERVAL);
         }
       }
     }
-    catch (final Exception exception)
+    catch (final InterruptedException interruptedException)
+    {
+      Thread.currentThread().interrupt();
+    }
+    finally
     {
-      logger.log(Level.SEVERE, exception.getMessage(), exception);
+      log.interrupt();
     }
   }
 }
@@ -0,0 +1,116 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.engine;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Worker of the engine, owner of one execution slot (working directory and Wine prefix) of the Iris.exe
+ */
+class WorkerEngine extends Thread
+{
+  /**
+   * The working directory of the Iris.exe, or null to inherit the one of the web server
+   */
+  private final File directory;
+
+  /**
+   * The engine that owns the worker
+   */
+  private final Engine engine;
+
+  /**
+   * The variables added to the environment of the Iris.exe, inherited from the web server
+   */
+  private final Map<String, String> environment;
+
+  /**
+   * The worker is reserved to the unique certificates
+   */
+  private final boolean fastLane;
+
+  /**
+   * Constructor
+   *
+   * @param engine the engine that owns the worker
+   * @param slot the name of the execution slot of the worker
+   * @param workspace the directory of the execution slots, or null to share the web server's one
+   * @param wine the Iris.exe executable runs on wine
+   * @param fastLane the worker is reserved to the unique certificates
+   */
+  WorkerEngine(final Engine engine, final String slot, final File workspace, final boolean wine, final boolean fastLane)
+  {
+    super("iris-" + slot);
+
+    this.engine = engine;
+
+    this.fastLane = fastLane;
+
+    if (workspace != null)
+    {
+      directory = new File(workspace, slot);
+
+      directory.mkdirs();
+
+      environment = wine ? Map.of("WINEPREFIX", new File(directory, ".wine").getAbsolutePath()) : Map.of();
+    }
+    else
+    {
+      directory = null;
+
+      environment = Map.of();
+    }
+  }
+
+  /**
+   * Get the working directory of the Iris.exe
+   *
+   * @return the working directory of the Iris.exe, or null to inherit the one of the web server
+   */
+  File getDirectory()
+  {
+    return directory;
+  }
+
+  /**
+   * Get the variables added to the environment of the Iris.exe
+   *
+   * @return the variables added to the environment of the Iris.exe, inherited from the web server
+   */
+  Map<String, String> getEnvironment()
+  {
+    return environment;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Thread#run()
+   */
+  @Override
+  public void run()
+  {
+    if (fastLane)
+    {
+      engine.lane(this);
+    }
+    else
+    {
+      engine.work(this);
+    }
+  }
+}
@@ -37,17 +37,37 @@ public class Iris implements Serializable
    */
   private static final long serialVersionUID = 1L;
 
+  /**
+   * Cancellation of the request to Iris
+   */
+  private Recover cancel;
+
   /**
    * List of certificates
    */
   @XmlElement(name = "ident")
   private List<Ident> certificates;
 
+  /**
+   * Priority of the certificates submitted, from 0 (default) to 9, the highest first under the PRIORITY scheduling policy
+   */
+  private Integer priority;
+
   /**
    * Monitoring the processing of the request to Iris
    */
   private Recover recover;
 
+  /**
+   * Get the cancellation of the request to Iris
+   *
+   * @return the cancellation of the request to Iris
+   */
+  public Recover getCancel()
+  {
+    return cancel;
+  }
+
   /**
    * Return the list of certificates
    *
@@ -58,6 +78,16 @@ public class Iris implements Serializable
     return certificates;
   }
 
+  /**
+   * Get the priority of the certificates submitted
+   *
+   * @return the priority of the certificates submitted, or null if not informed
+   */
+  public Integer getPriority()
+  {
+    return priority;
+  }
+
   /**
    * Get the monitoring the processing of the request to Iris
    *
@@ -68,6 +98,16 @@ public class Iris implements Serializable
     return recover;
   }
 
+  /**
+   * Set the cancellation of the request to Iris
+   *
+   * @param cancel the cancellation of the request to Iris
+   */
+  public void setCancel(final Recover cancel)
+  {
+    this.cancel = cancel;
+  }
+
   /**
    * Set the list of certificates
    *
@@ -78,6 +118,16 @@ public class Iris implements Serializable
     this.certificates = certificates;
   }
 
+  /**
+   * Set the priority of the certificates submitted
+   *
+   * @param priority the priority of the certificates submitted, or null if not informed
+   */
+  public void setPriority(final Integer priority)
+  {
+    this.priority = priority;
+  }
+
   /**
    * Set the monitoring the processing of the request to Iris
    *
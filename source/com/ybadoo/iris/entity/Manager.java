@@ -17,6 +17,8 @@
 
 package com.ybadoo.iris.entity;
 
+import java.util.List;
+
 import com.ybadoo.iris.constant.LotType;
 import com.ybadoo.iris.constant.ProcessingStatus;
 
@@ -25,26 +27,91 @@ import com.ybadoo.iris.constant.ProcessingStatus;
  */
 public class Manager
 {
+  /**
+   * Number of certificates in the lot
+   */
+  private int certificates;
+
+  /**
+   * Identifier of the claim that moved the lot to RUNNING
+   */
+  private String claimant;
+
+  /**
+   * Length of the longest certificate key in the lot
+   */
+  private int keyLength;
+
   /**
    * Lot's type
    */
   private LotType lotType;
 
+  /**
+   * Lots packed in this lot to be coded by a single Iris.exe run, or null if the lot is not a pack
+   */
+  private List<Manager> lots;
+
   /**
    *
    */
   private String owner;
 
+  /**
+   * Priority of the lot, the highest first under the PRIORITY scheduling policy
+   */
+  private int priority;
+
+  /**
+   * The certificates of the lot were moved to the Iris, so a failure must move them back
+   */
+  private boolean staged;
+
   /**
    * Processing status of the Iris webservice
    */
   private ProcessingStatus status;
 
+  /**
+   * Name of the pair of lot tables leased from the pool, or null if the tables are named by the identifier of the lot
+   */
+  private String tables;
+
   /**
    *
    */
   private String uid;
 
+  /**
+   * Get the number of certificates in the lot
+   *
+   * @return the number of certificates in the lot
+   */
+  public int getCertificates()
+  {
+    return certificates;
+  }
+
+  /**
+   * Get the identifier of the claim that moved the lot to RUNNING
+   *
+   * @return the identifier of the claim that moved the lot to RUNNING
+   */
+  public String getClaimant()
+  {
+    return claimant;
+  }
+
+  /**
+   * Get the length of the longest certificate key in the lot
+   *
+   * @return the length of the longest certificate key in the lot
+   */
+  public int getKeyLength()
+  {
+    return keyLength;
+  }
+
   /**
    * Get the lot's type
    *
@@ -55,6 +122,16 @@ public class Manager
     return lotType;
   }
 
+  /**
+   * Get the lots packed in this lot to be coded by a single Iris.exe run
+   *
+   * @return the lots packed in this lot, or null if the lot is not a pack
+   */
+  public List<Manager> getLots()
+  {
+    return lots;
+  }
+
   /**
    * @return the owner
    */
@@ -63,6 +140,16 @@ public class Manager
     return owner;
   }
 
+  /**
+   * Get the priority of the lot
+   *
+   * @return the priority of the lot, the highest first under the PRIORITY scheduling policy
+   */
+  public int getPriority()
+  {
+    return priority;
+  }
+
   /**
    * Get the processing status of the Iris webservice
    *
@@ -73,6 +160,16 @@ public class Manager
     return status;
   }
 
+  /**
+   * Get the name of the pair of lot tables, the identifier of the lot unless the tables are leased from the pool
+   *
+   * @return the name of the pair of lot tables
+   */
+  public String getTables()
+  {
+    return tables != null ? tables : uid;
+  }
+
   /**
    * @return the uid
    */
@@ -81,6 +178,46 @@ public class Manager
     return uid;
   }
 
+  /**
+   * Tests whether the certificates of the lot were moved to the Iris, so a failure must move them back
+   *
+   * @return true if the certificates of the lot were moved to the Iris, false otherwise
+   */
+  public boolean isStaged()
+  {
+    return staged;
+  }
+
+  /**
+   * Set the number of certificates in the lot
+   *
+   * @param certificates the number of certificates in the lot
+   */
+  public void setCertificates(final int certificates)
+  {
+    this.certificates = certificates;
+  }
+
+  /**
+   * Set the identifier of the claim that moved the lot to RUNNING
+   *
+   * @param claimant the identifier of the claim that moved the lot to RUNNING
+   */
+  public void setClaimant(final String claimant)
+  {
+    this.claimant = claimant;
+  }
+
+  /**
+   * Set the length of the longest certificate key in the lot
+   *
+   * @param keyLength the length of the longest certificate key in the lot
+   */
+  public void setKeyLength(final int keyLength)
+  {
+    this.keyLength = keyLength;
+  }
+
   /**
    * Set the lot's type by your value
    *
@@ -108,6 +245,26 @@ public class Manager
     this.lotType = lotType;
   }
 
+  /**
+   * Set the lots packed in this lot to be coded by a single Iris.exe run
+   *
+   * @param lots the lots packed in this lot, or null if the lot is not a pack
+   */
+  public void setLots(final List<Manager> lots)
+  {
+    this.lots = lots;
+  }
+
+  /**
+   * Set the priority of the lot
+   *
+   * @param priority the priority of the lot, the highest first under the PRIORITY scheduling policy
+   */
+  public void setPriority(final int priority)
+  {
+    this.priority = priority;
+  }
+
   /**
    * @param owner the owner to set
    */
@@ -116,6 +273,16 @@ public class Manager
     this.owner = owner;
   }
 
+  /**
+   * Set if the certificates of the lot were moved to the Iris
+   *
+   * @param staged the certificates of the lot were moved to the Iris
+   */
+  public void setStaged(final boolean staged)
+  {
+    this.staged = staged;
+  }
+
   /**
    * Set the processing status of the Iris webservice
    *
@@ -131,6 +298,14 @@ public class Manager
     {
       setStatus(ProcessingStatus.RUNNING);
     }
+    else if (value == ProcessingStatus.QUARANTINED.getValue())
+    {
+      setStatus(ProcessingStatus.QUARANTINED);
+    }
+    else if (value == ProcessingStatus.CANCELLED.getValue())
+    {
+      setStatus(ProcessingStatus.CANCELLED);
+    }
     else
     {
       setStatus(ProcessingStatus.FINISHED);
@@ -147,6 +322,16 @@ public class Manager
     this.status = status;
   }
 
+  /**
+   * Set the name of the pair of lot tables leased from the pool
+   *
+   * @param tables the name of the pair of lot tables, or null if the tables are named by the identifier of the lot
+   */
+  public void setTables(final String tables)
+  {
+    this.tables = tables;
+  }
+
   /**
    * @param uid the uid to set
    */
@@ -22,6 +22,7 @@ import java.io.Serializable;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -37,6 +38,36 @@ public class Recover implements Serializable
    */
   private static final long serialVersionUID = 1L;
 
+  /**
+   * Number of certificates in the ready lots ahead in the queue
+   */
+  private Integer backlog;
+
+  /**
+   * Number of certificates of the lot
+   */
+  private Integer certificates;
+
+  /**
+   * Number of certificates coded so far
+   */
+  private Integer coded;
+
+  /**
+   * Estimated time to the end of the processing, in seconds
+   */
+  private Long eta;
+
+  /**
+   * Position of the lot in the queue, from 1
+   */
+  private Integer position;
+
+  /**
+   * Suggested time to wait before the next recover, in seconds
+   */
+  private Long retryAfter;
+
   /**
    * Status of processing
    */
@@ -68,6 +99,67 @@ public class Recover implements Serializable
     this.status = status;
   }
 
+  /**
+   * Get the number of certificates in the ready lots ahead in the queue
+   *
+   * @return the number of certificates in the ready lots ahead in the queue, or null if the lot is not ready
+   */
+  @XmlTransient
+  public Integer getBacklog()
+  {
+    return backlog;
+  }
+
+  /**
+   * Get the number of certificates of the lot
+   *
+   * @return the number of certificates of the lot
+   */
+  public Integer getCertificates()
+  {
+    return certificates;
+  }
+
+  /**
+   * Get the number of certificates coded so far
+   *
+   * @return the number of certificates coded so far, or null if unknown
+   */
+  public Integer getCoded()
+  {
+    return coded;
+  }
+
+  /**
+   * Get the estimated time to the end of the processing
+   *
+   * @return the estimated time to the end of the processing, in seconds, or null if unknown
+   */
+  public Long getEta()
+  {
+    return eta;
+  }
+
+  /**
+   * Get the position of the lot in the queue
+   *
+   * @return the position of the lot in the queue, from 1, or null if the lot is not ready
+   */
+  public Integer getPosition()
+  {
+    return position;
+  }
+
+  /**
+   * Get the suggested time to wait before the next recover
+   *
+   * @return the suggested time to wait before the next recover, in seconds, or null if the lot is processed
+   */
+  public Long getRetryAfter()
+  {
+    return retryAfter;
+  }
+
   /**
    * Get the processing queue position
    *
@@ -88,6 +180,66 @@ public class Recover implements Serializable
     return uid;
   }
 
+  /**
+   * Set the number of certificates in the ready lots ahead in the queue
+   *
+   * @param backlog the number of certificates in the ready lots ahead in the queue
+   */
+  public void setBacklog(final Integer backlog)
+  {
+    this.backlog = backlog;
+  }
+
+  /**
+   * Set the number of certificates of the lot
+   *
+   * @param certificates the number of certificates of the lot
+   */
+  public void setCertificates(final Integer certificates)
+  {
+    this.certificates = certificates;
+  }
+
+  /**
+   * Set the number of certificates coded so far
+   *
+   * @param coded the number of certificates coded so far
+   */
+  public void setCoded(final Integer coded)
+  {
+    this.coded = coded;
+  }
+
+  /**
+   * Set the estimated time to the end of the processing
+   *
+   * @param eta the estimated time to the end of the processing, in seconds
+   */
+  public void setEta(final Long eta)
+  {
+    this.eta = eta;
+  }
+
+  /**
+   * Set the position of the lot in the queue
+   *
+   * @param position the position of the lot in the queue, from 1
+   */
+  public void setPosition(final Integer position)
+  {
+    this.position = position;
+  }
+
+  /**
+   * Set the suggested time to wait before the next recover
+   *
+   * @param retryAfter the suggested time to wait before the next recover, in seconds
+   */
+  public void setRetryAfter(final Long retryAfter)
+  {
+    this.retryAfter = retryAfter;
+  }
+
   /**
    * Set the processing queue position
    *
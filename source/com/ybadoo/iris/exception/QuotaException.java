@@ -0,0 +1,57 @@
+/** Copyright (C) 2009/2022 - Cristiano Lehrer - ybadoo.com.br                  *
+  *                                                                             *
+  * This file is part of Vital Iris Web Service (IRIS)                          *
+  *                                                                             *
+  * IRIS is free software: you can redistribute it and/or modify                *
+  * it under the terms of the GNU Lesser General Public License as published by *
+  * the Free Software Foundation, either version 3 of the License, or           *
+  * (at your option) any later version.                                         *
+  *                                                                             *
+  * IRIS is distributed in the hope that it will be useful,                     *
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of              *
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                *
+  * GNU Lesser General Public License for more details.                         *
+  *                                                                             *
+  * You should have received a copy of the GNU Lesser General Public License    *
+  * along with IRIS. If not, see <http://www.gnu.org/licenses/>.                */
+
+package com.ybadoo.iris.exception;
+
+/**
+ * Submission refused because the owner exceeded its quota of queued certificates, to be retried later
+ */
+public class QuotaException extends FrontendException
+{
+  /**
+   * Version number of serializable class
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Time to wait before retrying the submission, in seconds
+   */
+  private final int retryAfter;
+
+  /**
+   * Constructs a QuotaException with the specified detail message and time to wait before retrying
+   *
+   * @param message the detail message
+   * @param retryAfter the time to wait before retrying the submission, in seconds
+   */
+  public QuotaException(final String message, final int retryAfter)
+  {
+    super(message);
+
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Get the time to wait before retrying the submission
+   *
+   * @return the time to wait before retrying the submission, in seconds
+   */
+  public int getRetryAfter()
+  {
+    return retryAfter;
+  }
+}
@@ -45,6 +45,7 @@ import com.ybadoo.iris.entity.Iris;
 import com.ybadoo.iris.entity.Recover;
 import com.ybadoo.iris.exception.BackendException;
 import com.ybadoo.iris.exception.FrontendException;
+import com.ybadoo.iris.exception.QuotaException;
 
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
@@ -58,6 +59,11 @@ import jakarta.servlet.http.HttpServletResponse;
  */
 public abstract class Service extends HttpServlet
 {
+  /**
+   * HTTP status code of a submission refused by the quota of the owner
+   */
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
   /**
    * Log of application
    */
@@ -99,6 +105,11 @@ public abstract class Service extends HttpServlet
   @Override
   public void destroy()
   {
+    if (getServletContext().getAttribute(SERVLET_CONTEXT_ENGINE_KEY) != null)
+    {
+      ((Engine) getServletContext().getAttribute(SERVLET_CONTEXT_ENGINE_KEY)).stop();
+    }
+
     destroyDatasource(SERVLET_CONTEXT_HOST_KEY);
 
     destroyDatasource(SERVLET_CONTEXT_CLUSTER_KEY);
@@ -211,19 +222,25 @@ public abstract class Service extends HttpServlet
         return;
       }
 
-      if ((iris.getCertificates() == null || iris.getCertificates().isEmpty()) && iris.getRecover() == null)
+      final var arguments = (iris.getCertificates() != null && !iris.getCertificates().isEmpty() ? 1 : 0) + (iris.getRecover() != null ? 1 : 0) + (iris.getCancel() != null ? 1 : 0);
+
+      if (arguments == 0)
       {
         writer.print(errorMarshal(new IllegalArgumentException("No arguments passed in the request")));
       }
-      else if (iris.getCertificates() != null && !iris.getCertificates().isEmpty() && iris.getRecover() != null)
+      else if (arguments > 1)
       {
         writer.print(errorMarshal(new IllegalArgumentException("Many arguments passed in the request")));
       }
+      else if (iris.getPriority() != null && (iris.getPriority() < 0 || iris.getPriority() > HostDatasource.MAX_PRIORITY))
+      {
+        writer.print(errorMarshal(new IllegalArgumentException("priority must be between 0 and " + HostDatasource.MAX_PRIORITY)));
+      }
       else if (iris.getCertificates() != null)
       {
         try
         {
-          writer.print(processCertificates(request.getSession().getId(), iris.getCertificates()));
+          writer.print(processCertificates(request.getSession().getId(), iris.getCertificates(), iris.getPriority() == null ? 0 : iris.getPriority()));
         }
         catch (final BackendException exception)
         {
@@ -233,6 +250,14 @@ public abstract class Service extends HttpServlet
 
           getServletContext().setAttribute(SERVLET_CONTEXT_ERROR_KEY, exception);
         }
+        catch (final QuotaException exception)
+        {
+          response.setStatus(HTTP_TOO_MANY_REQUESTS);
+
+          response.setHeader("Retry-After", String.valueOf(exception.getRetryAfter()));
+
+          writer.print(errorMarshal(exception));
+        }
       }
       else if (iris.getRecover() != null)
       {
@@ -253,6 +278,25 @@ public abstract class Service extends HttpServlet
           writer.print(errorMarshal(exception));
         }
       }
+      else if (iris.getCancel() != null)
+      {
+        try
+        {
+          writer.print(processCancel(request.getSession().getId(), iris.getCancel(), engine));
+        }
+        catch (final BackendException exception)
+        {
+          logger.log(Level.SEVERE, exception.getMessage(), exception);
+
+          writer.print(errorMarshal(exception));
+
+          getServletContext().setAttribute(SERVLET_CONTEXT_ERROR_KEY, exception);
+        }
+        catch (final FrontendException exception)
+        {
+          writer.print(errorMarshal(exception));
+        }
+      }
       else
       {
         writer.print(errorMarshal(new NullPointerException("Unknown kind of entity was encountered")));
@@ -289,6 +333,13 @@ public abstract class Service extends HttpServlet
 
     final ServletContext servletContext = servletConfig.getServletContext();
 
+    if (servletContext.getAttribute(SERVLET_CONTEXT_ENGINE_KEY) != null)
+    {
+      dateTimeFormatter = ((HostDatasource) servletContext.getAttribute(SERVLET_CONTEXT_HOST_KEY)).getDateTimeFormatter();
+
+      return;
+    }
+
     try
     {
       final var hostServer = servletContext.getInitParameter("host.database.server");
@@ -322,6 +373,16 @@ public abstract class Service extends HttpServlet
 
       hostDatasource.validate();
 
+      hostDatasource.setSchedulingPolicy(servletContext.getInitParameter("host.iris.scheduler"));
+
+      hostDatasource.setFair(servletContext.getInitParameter("host.iris.fair"));
+
+      hostDatasource.setQuotaCertificates(servletContext.getInitParameter("host.iris.quota.certificates"));
+
+      hostDatasource.setQuotaLots(servletContext.getInitParameter("host.iris.quota.lots"));
+
+      hostDatasource.setPoolSize(servletContext.getInitParameter("host.iris.pool"));
+
       servletContext.setAttribute(SERVLET_CONTEXT_HOST_KEY, hostDatasource);
 
       var clusterDatabase = hostDatabase;
@@ -370,11 +431,23 @@ public abstract class Service extends HttpServlet
 
         engineAccess.setLotName(servletContext.getInitParameter("host.OLEDB.lotName"));
 
+        engineAccess.setTemplateMDB(servletContext.getInitParameter("host.OLEDB.template"));
+
+        engineAccess.setStagingMDB(servletContext.getInitParameter("host.OLEDB.staging"));
+
+        hostDatasource.setJournal(servletContext.getInitParameter("host.OLEDB.journal"));
+
         engine = engineAccess;
       }
       else if ("PostgreSQL".equals(irisServer) || "MySQL".equals(irisServer))
       {
-        engine = new DatabaseEngine(hostDatasource);
+        final var engineDatabase = new DatabaseEngine(hostDatasource);
+
+        engineDatabase.setCoalesceSize(servletContext.getInitParameter("host.iris.coalesce.size"));
+
+        engineDatabase.setCoalesceLots(servletContext.getInitParameter("host.iris.coalesce.lots"));
+
+        engine = engineDatabase;
       }
       else
       {
@@ -387,6 +460,34 @@ public abstract class Service extends HttpServlet
 
       engine.setTimeout(servletContext.getInitParameter("host.iris.timeout"));
 
+      engine.setTimeoutFactor(servletContext.getInitParameter("host.iris.timeout.factor"));
+
+      engine.setTimeoutCertificate(servletContext.getInitParameter("host.iris.timeout.certificate"));
+
+      engine.setWorkers(servletContext.getInitParameter("host.iris.workers"));
+
+      engine.setFastLane(servletContext.getInitParameter("host.iris.fastlane"));
+
+      engine.setWorkspace(servletContext.getInitParameter("host.iris.workspace"));
+
+      engine.setLimiter(servletContext.getInitParameter("host.iris.limiter"));
+
+      engine.setLimiterLoad(servletContext.getInitParameter("host.iris.limiter.load"));
+
+      engine.setBatchWait(servletContext.getInitParameter("host.iris.batch.wait"));
+
+      engine.setBatchSize(servletContext.getInitParameter("host.iris.batch.size"));
+
+      engine.setRetryAttempts(servletContext.getInitParameter("host.iris.retry.attempts"));
+
+      engine.setRetryBackoff(servletContext.getInitParameter("host.iris.retry.backoff"));
+
+      engine.setHedgePercentile(servletContext.getInitParameter("host.iris.hedge.percentile"));
+
+      hostDatasource.setListener(engine::submitted);
+
+      engine.start();
+
       servletContext.setAttribute(SERVLET_CONTEXT_ENGINE_KEY, engine);
     }
     catch (final Exception exception)
@@ -418,14 +519,49 @@ public abstract class Service extends HttpServlet
    */
   protected abstract String marshal(final Class<?> klass, final Object object);
 
+  /**
+   * Process the cancellation of the request to Iris, killing the Iris.exe if the lot is running on this host
+   *
+   * @param owner the identifier of the owner
+   * @param cancel cancellation of the request to Iris
+   * @param engine the engine of this host
+   * @return cancellation of the request to Iris or error
+   * @throws BackendException
+   * @throws FrontendException
+   */
+  private String processCancel(final String owner, final Recover cancel, final Engine engine) throws BackendException, FrontendException
+  {
+    if (cancel.validate())
+    {
+      final var hostDatasource = (HostDatasource) getServletContext().getAttribute(SERVLET_CONTEXT_HOST_KEY);
+
+      if (hostDatasource.cancel(owner, cancel.getUid()) == ProcessingStatus.RUNNING)
+      {
+        engine.cancel(cancel.getUid());
+      }
+
+      cancel.setStatus(ProcessingStatus.CANCELLED.toString());
+
+      final var iris = new Iris();
+
+      iris.setCancel(cancel);
+
+      return marshal(Iris.class, iris);
+    }
+
+    return errorMarshal(new NullPointerException("uid is empty"));
+  }
+
   /**
    * Process certificates submitted by the owner
    *
    * @param certificates list of certificates
+   * @param priority priority of the certificates
    * @return monitoring the processing of the request to Iris or error or list of certificates invalids
    * @throws BackendException
+   * @throws QuotaException if the owner exceeded its quota of queued certificates
    */
-  private String processCertificates(final String owner, final List<Ident> certificates) throws BackendException
+  private String processCertificates(final String owner, final List<Ident> certificates, final int priority) throws BackendException, QuotaException
   {
     final boolean single = certificates.size() < 2;
 
@@ -442,13 +578,9 @@ public abstract class Service extends HttpServlet
     {
       final var hostDatasource = (HostDatasource) getServletContext().getAttribute(SERVLET_CONTEXT_HOST_KEY);
 
-      final var recover = new Recover(hostDatasource.beginProcess(owner, certificates), ProcessingStatus.READY.toString());
+      final var recover = new Recover(hostDatasource.beginProcess(owner, certificates, priority), ProcessingStatus.READY.toString());
 
       iris.setRecover(recover);
-
-      final var engine = (Engine) getServletContext().getAttribute(SERVLET_CONTEXT_ENGINE_KEY);
-
-      engine.process();
     }
     else
     {
@@ -479,7 +611,11 @@ public abstract class Service extends HttpServlet
 
       final var iris = hostDatasource.recover(owner, recover);
 
-      if (iris.getCertificates() != null)
+      if (iris.getCertificates() == null)
+      {
+        ((Engine) getServletContext().getAttribute(SERVLET_CONTEXT_ENGINE_KEY)).estimate(iris.getRecover());
+      }
+      else
       {
         final var clusterDatasource = (ClusterDatasource) getServletContext().getAttribute(SERVLET_CONTEXT_CLUSTER_KEY);
 
@@ -490,12 +626,6 @@ public abstract class Service extends HttpServlet
           iris.getCertificates().get(0).configCertificateKey(null);
         }
       }
-      else
-      {
-        final var engine = (Engine) getServletContext().getAttribute(SERVLET_CONTEXT_ENGINE_KEY);
-
-        engine.process();
-      }
 
       return marshal(Iris.class, iris);
     }